@@ -0,0 +1,58 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+// На платформенных потоках параллелизм запросов ограничен пулом Tomcat. На виртуальных потоках запросов
+// может быть сколько угодно, и ограничителем перед базой становится семафор размером с пул соединений
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DatabaseBulkheadConfig {
+
+    public static final String AVAILABLE_GAUGE = "bank.db.bulkhead.available";
+
+    public static final String WAITING_GAUGE = "bank.db.bulkhead.waiting";
+
+    // Постпроцессор создается раньше, чем заработают плейсхолдеры @Value, поэтому настройки читаются через Binder
+    @Bean
+    static BeanPostProcessor databaseBulkheadPostProcessor(Environment environment) {
+        Binder binder = Binder.get(environment);
+        int maxConcurrent = binder.bind("db.bulkhead.max-concurrent", Integer.class).orElse(0);
+        Duration acquireTimeout = binder.bind("db.bulkhead.acquire-timeout", Duration.class).orElse(Duration.ofSeconds(5));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int permits = maxConcurrent > 0 ? maxConcurrent : hikari.getMaximumPoolSize();
+                    return new BulkheadDataSource(hikari, permits, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder databaseBulkheadMetrics(DataSource dataSource) throws SQLException {
+        BulkheadDataSource bulkhead = dataSource.unwrap(BulkheadDataSource.class);
+        return registry -> {
+            Gauge.builder(AVAILABLE_GAUGE, bulkhead, BulkheadDataSource::availablePermits)
+                    .description("Free database connection permits")
+                    .register(registry);
+            Gauge.builder(WAITING_GAUGE, bulkhead, BulkheadDataSource::waitingThreads)
+                    .description("Threads waiting for a database connection permit")
+                    .register(registry);
+        };
+    }
+}
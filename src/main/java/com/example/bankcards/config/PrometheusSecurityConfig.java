@@ -0,0 +1,49 @@
+package com.example.bankcards.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+
+// Скрейп Prometheus идет по HTTP Basic с отдельной учетной записью: у сборщика метрик нет JWT, а открытые
+// метрики раскрывают объемы переводов и нагрузку. Цепочка срабатывает раньше основной и только на этом пути
+@Configuration
+public class PrometheusSecurityConfig {
+
+    public static final String SCRAPE_PATH = "/actuator/prometheus";
+
+    private static final String SCRAPE_AUTHORITY = "METRICS_SCRAPE";
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http,
+                                                     @Value("${prometheus.scrape.username}") String username,
+                                                     @Value("${prometheus.scrape.password}") String password)
+            throws Exception {
+        // Пароль сравнивается как есть: он приходит из окружения, а BCrypt на каждый скрейп лишь тратит процессор
+        InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager(User.withUsername(username)
+                .password("{noop}" + password)
+                .authorities(SCRAPE_AUTHORITY)
+                .build());
+
+        http
+                .securityMatcher(SCRAPE_PATH)
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authenticationManager(new ProviderManager(new DaoAuthenticationProvider(scrapers)))
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasAuthority(SCRAPE_AUTHORITY))
+                .httpBasic(Customizer.withDefaults());
+
+        return http.build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.bankcards.config.liquibase;
+
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.util.EncryptionUtils;
+import liquibase.change.CheckSum;
+import liquibase.change.custom.CustomChangeChecksum;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Заполняет cards.number_hash для существующих карт порциями по id, не загружая всю таблицу в память
+@Slf4j
+@Setter
+public class CardNumberHashBackfill implements CustomTaskChange, CustomChangeChecksum {
+
+    private static final int CHUNK_SIZE = 500;
+
+    // Liquibase передает параметры changeSet только в свойства с геттером и сеттером
+    @Getter
+    private String secretKey;
+
+    @Getter
+    private String blindIndexKey;
+
+    private int backfilled;
+
+    private int skipped;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        EncryptionUtils encryptionUtils = new EncryptionUtils(secretKey, blindIndexKey, 1);
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, number FROM cards WHERE number_hash IS NULL AND id > ? ORDER BY id LIMIT ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE cards SET number_hash = ? WHERE id = ?")) {
+
+            long lastId = 0;
+            int fetched;
+            do {
+                fetched = 0;
+                select.setLong(1, lastId);
+                select.setInt(2, CHUNK_SIZE);
+
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        fetched++;
+                        lastId = rows.getLong("id");
+
+                        byte[] numberHash = blindIndex(encryptionUtils, lastId, rows.getString("number"));
+                        if (numberHash == null) {
+                            skipped++;
+                            continue;
+                        }
+
+                        update.setBytes(1, numberHash);
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        backfilled++;
+                    }
+                }
+
+                update.executeBatch();
+                // Каждая порция фиксируется отдельно: прерванная миграция продолжит с незаполненных строк
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } while (fetched == CHUNK_SIZE);
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Failed to backfill cards.number_hash", e);
+        }
+    }
+
+    private byte[] blindIndex(EncryptionUtils encryptionUtils, long cardId, String encryptedNumber) {
+        try {
+            return encryptionUtils.blindIndex(encryptionUtils.decrypt(encryptedNumber));
+        } catch (BusinessLogicException e) {
+            log.warn("Card {} number cannot be decrypted, number_hash left empty", cardId);
+            return null;
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Backfilled number_hash for " + backfilled + " cards, skipped " + skipped + " undecryptable cards";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("secretKey", secretKey);
+        errors.checkRequiredField("blindIndexKey", blindIndexKey);
+        return errors;
+    }
+
+    // Ключи не входят в контрольную сумму, чтобы их ротация не ломала проверку уже примененного changeSet
+    @Override
+    public CheckSum generateChecksum() {
+        return CheckSum.compute(getClass().getName());
+    }
+}
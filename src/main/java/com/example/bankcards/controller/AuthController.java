@@ -7,6 +7,7 @@ import com.example.bankcards.enums.RoleName;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserPrincipal;
 import com.example.bankcards.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -62,12 +63,11 @@ public class AuthController {
 
         User user = userService.createUser(signUpRequest.getUsername(), signUpRequest.getPassword(), RoleName.USER);
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        signUpRequest.getUsername(),
-                        signUpRequest.getPassword()
-                )
-        );
+        // Пароль только что захэширован при создании пользователя - повторная проверка через
+        // AuthenticationManager стоила бы еще одного BCrypt
+        UserPrincipal principal = UserPrincipal.create(user);
+        Authentication authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
@@ -3,20 +3,33 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.UpdateCardRequest;
 import com.example.bankcards.dto.response.CardDTOResponse;
+import com.example.bankcards.dto.response.CardImportJobDTOResponse;
+import com.example.bankcards.dto.response.CursorPageDTOResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.enums.DataFormat;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.service.CardImportJob;
+import com.example.bankcards.service.CardImportService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.ConditionalGet;
+import com.example.bankcards.util.KeysetCursor;
 import com.example.bankcards.util.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/cards")
@@ -25,6 +38,8 @@ public class CardController {
 
     private final CardService cardService;
 
+    private final CardImportService cardImportService;
+
     private final SecurityUtils securityUtils;
 
     private final CardMapper cardMapper;
@@ -38,6 +53,25 @@ public class CardController {
         return ResponseEntity.status(HttpStatus.CREATED).body(cardDTO);
     }
 
+    // Массовая загрузка карт из CSV или NDJSON: файл обрабатывается в фоне, в ответе id задачи
+    @PostMapping("/import")
+    @Secured("ADMIN")
+    public ResponseEntity<CardImportJobDTOResponse> importCards(
+            @RequestParam(defaultValue = "CSV") DataFormat format,
+            InputStream body) throws IOException {
+        CardImportJob job = cardImportService.startImport(body, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/cards/import/" + job.getId()))
+                .body(CardImportJobDTOResponse.of(job));
+    }
+
+    // Прогресс загрузки и ошибки по строкам
+    @GetMapping("/import/{jobId}")
+    @Secured("ADMIN")
+    public ResponseEntity<CardImportJobDTOResponse> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(CardImportJobDTOResponse.of(cardImportService.getJob(jobId)));
+    }
+
     // Получить карту по ID
     @GetMapping("/{cardId}")
     @Secured("ADMIN")
@@ -48,14 +82,15 @@ public class CardController {
         return ResponseEntity.ok(cardDTO);
     }
 
-    // Все карты текущего пользователя
+    // Все карты текущего пользователя; ETag - версия набора карт, страница задается самим URL
     @GetMapping("/my")
     public ResponseEntity<Page<CardDTOResponse>> getMyCards(
-            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            WebRequest webRequest) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        Page<Card> cards = cardService.getUserCards(currentUserId, pageable);
-        Page<CardDTOResponse> cardDTOs = cards.map(cardMapper::cardToCardDTOResponse);
-        return ResponseEntity.ok(cardDTOs);
+        String version = cardService.getUserCardsVersion(currentUserId).stamp();
+        return ConditionalGet.ok(webRequest, version,
+                () -> cardService.getUserCards(currentUserId, pageable).map(cardMapper::cardToCardDTOResponse));
     }
 
     // Все карты
@@ -69,6 +104,18 @@ public class CardController {
         return ResponseEntity.ok(cardDTOs);
     }
 
+    // Все карты с seek-пагинацией по курсору, без подсчета общего количества
+    @GetMapping("/admin/all/cursor")
+    @Secured("ADMIN")
+    public ResponseEntity<CursorPageDTOResponse<CardDTOResponse>> getAllCardsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        Slice<Card> cards = cardService.getAllCards(KeysetCursor.decodeNullable(cursor), size, currentUserId);
+        return ResponseEntity.ok(CursorPageDTOResponse.of(cards, cardMapper::cardToCardDTOResponse,
+                card -> new KeysetCursor(card.getCreatedAt(), card.getId())));
+    }
+
     // Обновить карту
     @PutMapping("/{cardId}")
     @Secured("ADMIN")
@@ -1,20 +1,28 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
+import com.example.bankcards.dto.response.BatchTransferDTOResponse;
+import com.example.bankcards.dto.response.BatchTransferItemDTOResponse;
+import com.example.bankcards.dto.response.CursorPageDTOResponse;
 import com.example.bankcards.dto.response.TransferDTOResponse;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.projection.TransferView;
+import com.example.bankcards.service.TransferBatchResult;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.KeysetCursor;
 import com.example.bankcards.util.SecurityUtils;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/transfers")
@@ -39,8 +47,28 @@ public class TransferController {
     @GetMapping("/admin/all")
     public ResponseEntity<Page<TransferDTOResponse>> getAllTransfers(
             @PageableDefault(size = 20) Pageable pageable) {
-        Page<Transfer> transfers = transferService.getAllTransfers(pageable);
-        Page<TransferDTOResponse> transferDTOs = transfers.map(transferMapper::transferToTransferDTOResponse);
+        Page<TransferView> transfers = transferService.getAllTransfers(pageable);
+        Page<TransferDTOResponse> transferDTOs = transfers.map(transferMapper::transferViewToTransferDTOResponse);
         return ResponseEntity.ok(transferDTOs);
     }
+
+    // Все переводы с seek-пагинацией по курсору, без подсчета общего количества
+    @GetMapping("/admin/all/cursor")
+    public ResponseEntity<CursorPageDTOResponse<TransferDTOResponse>> getAllTransfersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Slice<TransferView> transfers = transferService.getAllTransfers(KeysetCursor.decodeNullable(cursor), size);
+        return ResponseEntity.ok(CursorPageDTOResponse.of(transfers, transferMapper::transferViewToTransferDTOResponse,
+                transfer -> new KeysetCursor(transfer.transferDate(), transfer.id())));
+    }
+
+    // Пакет переводов между любыми картами
+    @PostMapping("/admin/batch")
+    public ResponseEntity<BatchTransferDTOResponse> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        List<TransferBatchResult> results = transferService.transferBatch(request.getTransfers());
+        List<BatchTransferItemDTOResponse> items = results.stream()
+                .map(transferMapper::transferBatchResultToDTOResponse)
+                .toList();
+        return ResponseEntity.ok(BatchTransferDTOResponse.of(items));
+    }
 }
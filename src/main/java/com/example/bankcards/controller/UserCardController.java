@@ -1,26 +1,47 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.BatchTransferDTOResponse;
+import com.example.bankcards.dto.response.BatchTransferItemDTOResponse;
 import com.example.bankcards.dto.response.CardDTOResponse;
+import com.example.bankcards.dto.response.CardSummaryDTOResponse;
+import com.example.bankcards.dto.response.CursorPageDTOResponse;
 import com.example.bankcards.dto.response.TransferDTOResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.enums.DataFormat;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.projection.TransferView;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardSummary;
+import com.example.bankcards.service.TransferBatchResult;
+import com.example.bankcards.service.TransferExportService;
+import com.example.bankcards.service.TransferIdempotencyService;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.ConditionalGet;
+import com.example.bankcards.util.KeysetCursor;
 import com.example.bankcards.util.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -31,6 +52,8 @@ public class UserCardController {
 
     private final CardService cardService;
     private final TransferService transferService;
+    private final TransferIdempotencyService transferIdempotencyService;
+    private final TransferExportService transferExportService;
     private final SecurityUtils securityUtils;
     private final CardMapper cardMapper;
     private final TransferMapper transferMapper;
@@ -47,32 +70,54 @@ public class UserCardController {
     // Пользователь делает переводы между своими картами
     @PostMapping("/transfer")
     public ResponseEntity<TransferDTOResponse> transferBetweenMyCards(
+            @RequestHeader(value = TransferIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        Transfer transfer = transferService.transferBetweenUserCards(
-                request.getFromCardId(),
-                request.getToCardId(),
-                request.getAmount(),
-                currentUserId
-        );
-        TransferDTOResponse transferDTO = transferMapper.transferToTransferDTOResponse(transfer);
+        if (idempotencyKey != null) {
+            TransferDTOResponse transferDTO = transferIdempotencyService.execute(currentUserId, idempotencyKey, request,
+                    () -> transferMapper.transferToTransferDTOResponse(transfer(request, currentUserId)));
+            return ResponseEntity.ok(transferDTO);
+        }
+
+        TransferDTOResponse transferDTO = transferMapper.transferToTransferDTOResponse(transfer(request, currentUserId));
         return ResponseEntity.ok(transferDTO);
     }
 
-    // Пользователь смотрит баланс конкретной карты
+    // Пользователь выполняет пакет переводов между своими картами в одной транзакции
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BatchTransferDTOResponse> transferBatchBetweenMyCards(
+            @Valid @RequestBody BatchTransferRequest request) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        List<TransferBatchResult> results = transferService.transferBatchBetweenUserCards(
+                request.getTransfers(), currentUserId);
+        List<BatchTransferItemDTOResponse> items = results.stream()
+                .map(transferMapper::transferBatchResultToDTOResponse)
+                .toList();
+        return ResponseEntity.ok(BatchTransferDTOResponse.of(items));
+    }
+
+    // Пользователь смотрит баланс конкретной карты; ETag - версия карты
     @GetMapping("/{cardId}/balance")
-    public ResponseEntity<BigDecimal> getCardBalance(@PathVariable Long cardId) {
+    public ResponseEntity<BigDecimal> getCardBalance(@PathVariable Long cardId, WebRequest webRequest) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        BigDecimal balance = cardService.getCardBalance(cardId, currentUserId);
-        return ResponseEntity.ok(balance);
+        String version = cardService.getCardVersion(cardId, currentUserId).stamp();
+        return ConditionalGet.ok(webRequest, version, () -> cardService.getCardBalance(cardId, currentUserId));
     }
 
-    // Пользователь смотрит общий баланс всех своих карт
+    // Пользователь смотрит общий баланс всех своих карт; ETag - версия набора карт
     @GetMapping("/total-balance")
-    public ResponseEntity<BigDecimal> getTotalBalance() {
+    public ResponseEntity<BigDecimal> getTotalBalance(WebRequest webRequest) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        BigDecimal totalBalance = cardService.getUserTotalBalance(currentUserId);
-        return ResponseEntity.ok(totalBalance);
+        String version = cardService.getUserCardsVersion(currentUserId).stamp();
+        return ConditionalGet.ok(webRequest, version, () -> cardService.getUserTotalBalance(currentUserId));
+    }
+
+    // Сводка по картам пользователя: общий баланс и количество карт по статусам одним запросом
+    @GetMapping("/summary")
+    public ResponseEntity<CardSummaryDTOResponse> getCardSummary() {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        CardSummary summary = cardService.getUserCardSummary(currentUserId);
+        return ResponseEntity.ok(cardMapper.cardSummaryToDTOResponse(summary));
     }
 
     // История переводов пользователя
@@ -80,30 +125,69 @@ public class UserCardController {
     public ResponseEntity<Page<TransferDTOResponse>> getUserTransfers(
             @PageableDefault(sort = "transferDate", direction = Sort.Direction.DESC) Pageable pageable) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        Page<Transfer> transfers = transferService.getUserTransfers(currentUserId, pageable);
-        Page<TransferDTOResponse> transferDTOs = transfers.map(transferMapper::transferToTransferDTOResponse);
+        Page<TransferView> transfers = transferService.getUserTransfers(currentUserId, pageable);
+        Page<TransferDTOResponse> transferDTOs = transfers.map(transferMapper::transferViewToTransferDTOResponse);
         return ResponseEntity.ok(transferDTOs);
     }
 
+    // История переводов пользователя с seek-пагинацией по курсору, без подсчета общего количества
+    @GetMapping("/transfers/cursor")
+    public ResponseEntity<CursorPageDTOResponse<TransferDTOResponse>> getUserTransfersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        Slice<TransferView> transfers = transferService.getUserTransfers(currentUserId, KeysetCursor.decodeNullable(cursor), size);
+        return ResponseEntity.ok(CursorPageDTOResponse.of(transfers, transferMapper::transferViewToTransferDTOResponse,
+                transfer -> new KeysetCursor(transfer.transferDate(), transfer.id())));
+    }
+
+    // Выгрузка всей истории переводов пользователя одним потоковым ответом в NDJSON или CSV
+    @GetMapping("/transfers/export")
+    public ResponseEntity<StreamingResponseBody> exportUserTransfers(
+            @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        TransferExportService.validatePeriod(startDate, endDate);
+
+        // Тело пишется в отдельном потоке после выхода из контроллера, транзакция открывается уже там
+        StreamingResponseBody body = outputStream ->
+                transferExportService.exportUserTransfers(currentUserId, startDate, endDate, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transfers." + format.getFileExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     // Активные карты пользователя
     @GetMapping("/active")
-    public ResponseEntity<List<CardDTOResponse>> getActiveCards() {
+    public ResponseEntity<List<CardDTOResponse>> getActiveCards(WebRequest webRequest) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        List<Card> activeCards = cardService.getUserActiveCards(currentUserId);
-        List<CardDTOResponse> cardDTOs = activeCards.stream()
+        String version = cardService.getUserCardsVersion(currentUserId).stamp();
+        return ConditionalGet.ok(webRequest, version, () -> cardService.getUserActiveCards(currentUserId).stream()
                 .map(cardMapper::cardToCardDTOResponse)
-                .toList();
-        return ResponseEntity.ok(cardDTOs);
+                .toList());
     }
 
     // Заблокированные карты пользователя
     @GetMapping("/blocked")
-    public ResponseEntity<List<CardDTOResponse>> getBlockedCards() {
+    public ResponseEntity<List<CardDTOResponse>> getBlockedCards(WebRequest webRequest) {
         Long currentUserId = securityUtils.getCurrentUserId();
-        List<Card> blockedCards = cardService.getUserBlockedCards(currentUserId);
-        List<CardDTOResponse> cardDTOs = blockedCards.stream()
+        String version = cardService.getUserCardsVersion(currentUserId).stamp();
+        return ConditionalGet.ok(webRequest, version, () -> cardService.getUserBlockedCards(currentUserId).stream()
                 .map(cardMapper::cardToCardDTOResponse)
-                .toList();
-        return ResponseEntity.ok(cardDTOs);
+                .toList());
+    }
+
+    private Transfer transfer(TransferRequest request, Long userId) {
+        return transferService.transferBetweenUserCards(
+                request.getFromCardId(),
+                request.getToCardId(),
+                request.getAmount(),
+                userId
+        );
     }
 }
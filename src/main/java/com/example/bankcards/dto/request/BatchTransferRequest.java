@@ -0,0 +1,16 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "Transfers list must not be empty")
+    @Size(max = 1000, message = "Batch must contain at most 1000 transfers")
+    private List<@Valid TransferRequest> transfers;
+}
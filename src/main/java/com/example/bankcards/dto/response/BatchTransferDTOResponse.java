@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferDTOResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemDTOResponse> results;
+
+    public static BatchTransferDTOResponse of(List<BatchTransferItemDTOResponse> results) {
+        int succeeded = (int) results.stream().filter(BatchTransferItemDTOResponse::isSuccess).count();
+        return new BatchTransferDTOResponse(succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.dto.response;
+
+import lombok.Data;
+
+@Data
+public class BatchTransferItemDTOResponse {
+    private int index;
+    private boolean success;
+    private TransferDTOResponse transfer;
+    private String error;
+}
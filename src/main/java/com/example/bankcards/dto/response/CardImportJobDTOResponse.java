@@ -0,0 +1,34 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.enums.CardImportStatus;
+import com.example.bankcards.service.CardImportJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportJobDTOResponse {
+    private String jobId;
+    private CardImportStatus status;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private List<CardImportErrorDTOResponse> errors;
+    private boolean errorsTruncated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public static CardImportJobDTOResponse of(CardImportJob job) {
+        List<CardImportErrorDTOResponse> errors = job.getErrors().stream()
+                .map(error -> new CardImportErrorDTOResponse(error.row(), error.message()))
+                .toList();
+        return new CardImportJobDTOResponse(job.getId(), job.getStatus(), job.getProcessedRows(),
+                job.getImportedRows(), job.getFailedRows(), errors, job.isErrorsTruncated(),
+                job.getStartedAt(), job.getFinishedAt());
+    }
+}
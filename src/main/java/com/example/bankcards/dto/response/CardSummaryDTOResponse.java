@@ -0,0 +1,14 @@
+package com.example.bankcards.dto.response;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class CardSummaryDTOResponse {
+    private BigDecimal totalBalance;
+    private long totalCards;
+    private long activeCards;
+    private long blockedCards;
+    private long expiredCards;
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTOResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static <E, T> CursorPageDTOResponse<T> of(Slice<E> slice, Function<E, T> mapper,
+                                                     Function<E, KeysetCursor> cursor) {
+        List<E> entities = slice.getContent();
+        String nextCursor = slice.hasNext() ? cursor.apply(entities.getLast()).encode() : null;
+        return new CursorPageDTOResponse<>(entities.stream().map(mapper).toList(), entities.size(),
+                slice.hasNext(), nextCursor);
+    }
+}
@@ -14,9 +14,12 @@ import java.time.LocalDate;
 @Table(name = "cards")
 public class Card extends AbstractEntity {
 
-    @Column(name = "number", nullable = false, unique = true, length = 512)
+    @Column(name = "number", nullable = false, length = 512)
     private String number; // Зашифрованный номер
 
+    @Column(name = "number_hash", unique = true, length = 32)
+    private byte[] numberHash; // HMAC номера для поиска и проверки уникальности
+
     @Column(name = "masked_number", nullable = false, length = 512)
     private String maskedNumber;
 
@@ -33,9 +36,15 @@ public class Card extends AbstractEntity {
     @Column(name = "balance", nullable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
     private User owner;
+
+    // Каждый UPDATE карты проверяет и увеличивает версию: параллельное изменение не перезаписывается молча,
+    // а завершается OptimisticLockingFailureException
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
 
 
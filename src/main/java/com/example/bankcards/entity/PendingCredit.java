@@ -0,0 +1,20 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Setter
+@Getter
+@Entity
+@Table(name = "pending_card_credits")
+public class PendingCredit extends AbstractEntity {
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId; // Горячая карта, баланс которой еще не увеличен
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+}
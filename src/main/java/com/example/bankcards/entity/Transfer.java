@@ -13,11 +13,11 @@ import java.time.LocalDateTime;
 @Table(name = "transfers")
 public class Transfer extends AbstractEntity {
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_card_id", nullable = false)
     private Card fromCard;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "to_card_id", nullable = false)
     private Card toCard;
 
@@ -3,8 +3,11 @@ package com.example.bankcards.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @Setter
@@ -19,7 +22,9 @@ public class User extends AbstractEntity {
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;
 
-    @ManyToMany
+    // Роли нужны при аутентификации и проверке прав и подгружаются графом; в списках пользователей — пачками
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -27,8 +32,11 @@ public class User extends AbstractEntity {
     )
     private Set<Role> roles = new HashSet<>();
 
-    @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, orphanRemoval = true)
-    private Set<Card> cards = new HashSet<>();
+    // Карты по id: у корпоративных клиентов их тысячи, а хэш сущности один на класс, поэтому HashSet
+    // свел бы поиск и добавление к перебору одной корзины
+    @OneToMany(mappedBy = "owner", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @MapKey(name = "id")
+    private Map<Long, Card> cards = new HashMap<>();
 }
 
 
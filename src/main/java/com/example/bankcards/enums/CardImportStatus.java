@@ -0,0 +1,8 @@
+package com.example.bankcards.enums;
+
+public enum CardImportStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
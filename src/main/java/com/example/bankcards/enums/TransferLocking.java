@@ -0,0 +1,9 @@
+package com.example.bankcards.enums;
+
+// Как перевод защищает балансы карт от параллельных изменений
+public enum TransferLocking {
+    // SELECT ... FOR UPDATE по возрастанию id: параллельные переводы по одной карте ждут друг друга
+    PESSIMISTIC,
+    // Чтение без блокировок; конфликт обнаруживается по версии карты при записи, и транзакция повторяется
+    OPTIMISTIC
+}
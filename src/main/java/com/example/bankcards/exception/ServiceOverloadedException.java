@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+    
+    public ServiceOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
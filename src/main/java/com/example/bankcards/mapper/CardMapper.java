@@ -1,7 +1,9 @@
 package com.example.bankcards.mapper;
 
 import com.example.bankcards.dto.response.CardDTOResponse;
+import com.example.bankcards.dto.response.CardSummaryDTOResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.service.CardSummary;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -11,4 +13,6 @@ public interface CardMapper {
     @Mapping(source = "owner.id", target = "userId")
     @Mapping(source = "expiry", target = "expirationDate")
     CardDTOResponse cardToCardDTOResponse(Card card);
+
+    CardSummaryDTOResponse cardSummaryToDTOResponse(CardSummary summary);
 }
@@ -1,16 +1,27 @@
 package com.example.bankcards.mapper;
 
+import com.example.bankcards.dto.response.BatchTransferItemDTOResponse;
 import com.example.bankcards.dto.response.TransferDTOResponse;
 import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.repository.projection.TransferView;
+import com.example.bankcards.service.TransferBatchResult;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface TransferMapper {
 
-    @Mapping(source = "fromCard.number", target = "fromCardMaskedNumber")
-    @Mapping(source = "toCard.number", target = "toCardMaskedNumber")
+    @Mapping(source = "fromCard.maskedNumber", target = "fromCardMaskedNumber")
+    @Mapping(source = "toCard.maskedNumber", target = "toCardMaskedNumber")
     @Mapping(source = "fromCard.owner.id", target = "fromUserId")
     @Mapping(source = "toCard.owner.id", target = "toUserId")
+    @Mapping(target = "description", ignore = true)
     TransferDTOResponse transferToTransferDTOResponse(Transfer transfer);
+
+    // Описание перевода не хранится (в Transfer нет такой колонки), поэтому в ответе оно пустое, как и у сущности
+    @Mapping(target = "description", ignore = true)
+    TransferDTOResponse transferViewToTransferDTOResponse(TransferView view);
+
+    @Mapping(target = "success", expression = "java(result.error() == null)")
+    BatchTransferItemDTOResponse transferBatchResultToDTOResponse(TransferBatchResult result);
 }
@@ -3,11 +3,24 @@ package com.example.bankcards.repository;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.repository.projection.CardSetVersion;
+import com.example.bankcards.repository.projection.CardStatusSummary;
+import com.example.bankcards.repository.projection.CardVersion;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,13 +29,90 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
     Page<Card> findAll(Pageable pageable);
 
+    // Seek-пагинация всех карт: первая порция по убыванию (createdAt, id), без COUNT
+    @Query("SELECT c FROM Card c ORDER BY c.createdAt DESC, c.id DESC")
+    Slice<Card> findFirstSlice(Pageable pageable);
+
+    // Следующая порция карт после курсора (createdAt, id)
+    @Query("SELECT c FROM Card c WHERE c.createdAt <= :createdAt " +
+            "AND (c.createdAt < :createdAt OR c.id < :id) ORDER BY c.createdAt DESC, c.id DESC")
+    Slice<Card> findSliceBefore(@Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
     Page<Card> findByOwner(User user, Pageable pageable);
 
+    Page<Card> findByOwnerId(Long ownerId, Pageable pageable);
+
     List<Card> findByOwner(User user);
 
-    boolean existsByNumber(String encryptedCardNumber);
+    boolean existsByNumberHash(byte[] numberHash);
+
+    Optional<Card> findByNumberHash(byte[] numberHash);
+
+    // Какие из переданных хэшей номеров уже заняты - одна проверка уникальности на порцию импорта
+    @Query("SELECT c.numberHash FROM Card c WHERE c.numberHash IN :numberHashes")
+    List<byte[]> findExistingNumberHashes(@Param("numberHashes") Collection<byte[]> numberHashes);
 
     List<Card> findByOwnerAndStatus(User owner, CardStatus status);
 
+    List<Card> findByOwnerIdAndStatus(Long ownerId, CardStatus status);
+
+    // Сумма балансов всех карт пользователя одним агрегатом
+    @Query("SELECT COALESCE(SUM(c.balance), 0) FROM Card c WHERE c.owner.id = :ownerId")
+    BigDecimal sumBalanceByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Количество карт и сумма балансов пользователя по статусам
+    @Query("SELECT new com.example.bankcards.repository.projection.CardStatusSummary(c.status, COUNT(c), SUM(c.balance)) " +
+            "FROM Card c WHERE c.owner.id = :ownerId GROUP BY c.status")
+    List<CardStatusSummary> summarizeByOwnerId(@Param("ownerId") Long ownerId);
+
     Optional<Card> findByIdAndOwnerId(Long cardId, Long userId);
+
+    // Версия карты для ETag без загрузки сущности
+    @Query("SELECT new com.example.bankcards.repository.projection.CardVersion(c.id, c.owner.id, c.version) " +
+            "FROM Card c WHERE c.id = :cardId")
+    Optional<CardVersion> findVersionById(@Param("cardId") Long cardId);
+
+    // Версия всех карт пользователя для ETag списков и сумм одним агрегатом
+    @Query("SELECT new com.example.bankcards.repository.projection.CardSetVersion(COUNT(c), SUM(c.id), SUM(c.version)) " +
+            "FROM Card c WHERE c.owner.id = :ownerId")
+    CardSetVersion findVersionByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Id всех карт пользователя без загрузки самих карт
+    @Query("SELECT c.id FROM Card c WHERE c.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Перевести в EXPIRED не больше batchSize активных карт с истекшим сроком. Порция выбирается по индексу
+    // (status, expiry); LIMIT держит блокировки строк короткими, поэтому запрос нативный. Версия увеличивается
+    // вручную, как это сделал бы Hibernate, чтобы оптимистичный перевод по карте увидел конфликт.
+    // Параллельные сборщики пропускают строки, уже взятые другим (SKIP LOCKED), а повторная проверка статуса
+    // во внешнем WHERE не дает второй раз поднять версию карте, которую успели перевести до блокировки
+    @Modifying
+    @Query(value = "UPDATE cards SET status = 'EXPIRED', updated_at = :now, version = version + 1 " +
+            "WHERE status = 'ACTIVE' AND id IN (" +
+            "SELECT id FROM cards WHERE status = 'ACTIVE' AND expiry < :today LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int expireActiveCardsBefore(@Param("today") LocalDate today,
+                                @Param("now") LocalDateTime now,
+                                @Param("batchSize") int batchSize);
+
+    // Увеличить баланс одним UPDATE без чтения карты: блокировка строки держится только до конца транзакции
+    // сброса, а не на время загрузки и проверки карты
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, c.version = c.version + 1, c.updatedAt = :now " +
+            "WHERE c.id = :cardId")
+    int addToBalance(@Param("cardId") Long cardId,
+                     @Param("amount") BigDecimal amount,
+                     @Param("now") LocalDateTime now);
+
+    // Найти карту пользователя с блокировкой строки (SELECT ... FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id = :cardId AND c.owner.id = :userId")
+    Optional<Card> findByIdAndOwnerIdForUpdate(@Param("cardId") Long cardId, @Param("userId") Long userId);
+
+    // Найти карты по списку id с блокировкой строк в порядке возрастания id
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :cardIds ORDER BY c.id")
+    List<Card> findAllByIdInForUpdate(@Param("cardIds") Collection<Long> cardIds);
 }
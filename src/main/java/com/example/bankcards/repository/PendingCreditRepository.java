@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.PendingCredit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingCreditRepository extends JpaRepository<PendingCredit, Long> {
+
+    // Самые старые отложенные зачисления по всем картам
+    @Query("SELECT p FROM PendingCredit p ORDER BY p.id")
+    List<PendingCredit> findOldest(Pageable pageable);
+
+    boolean existsByCardId(Long cardId);
+
+    // Удалить зачисления по id; меньшее число удаленных строк значит, что часть уже забрал другой сброс
+    @Modifying
+    @Query("DELETE FROM PendingCredit p WHERE p.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
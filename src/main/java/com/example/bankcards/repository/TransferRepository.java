@@ -1,35 +1,98 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Transfer;
-import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.projection.TransferView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
-    // Найти переводы, где пользователь является отправителем или получателем
-    @Query("SELECT t FROM Transfer t WHERE t.fromCard.owner = :user OR t.toCard.owner = :user")
-    Page<Transfer> findByUser(@Param("user") User user, Pageable pageable);
+    String TRANSFER_VIEW = "SELECT new com.example.bankcards.repository.projection.TransferView(" +
+            "t.id, fc.maskedNumber, tc.maskedNumber, t.amount, t.transferDate, fc.owner.id, tc.owner.id) " +
+            "FROM Transfer t JOIN Card fc ON fc.id = t.fromCard.id JOIN Card tc ON tc.id = t.toCard.id ";
+
+    // Сколько строк драйвер забирает за раз при потоковом чтении; без него PostgreSQL отдает весь результат сразу
+    String EXPORT_FETCH_SIZE = "500";
+
+    // Найти переводы по картам пользователя (отправитель или получатель); условие по id карт использует индексы
+    @Query(value = TRANSFER_VIEW + "WHERE t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds",
+            countQuery = "SELECT COUNT(t) FROM Transfer t WHERE t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds")
+    Page<TransferView> findByCardIds(@Param("cardIds") Collection<Long> cardIds, Pageable pageable);
+
+    // Seek-пагинация истории переводов пользователя: первая порция по убыванию (transferDate, id)
+    @Query(TRANSFER_VIEW + "WHERE t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds " +
+            "ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferView> findFirstSliceByCardIds(@Param("cardIds") Collection<Long> cardIds, Pageable pageable);
+
+    // Следующая порция истории переводов после курсора (transferDate, id)
+    @Query(TRANSFER_VIEW + "WHERE (t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds) " +
+            "AND t.transferDate <= :transferDate AND (t.transferDate < :transferDate OR t.id < :id) " +
+            "ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferView> findSliceByCardIdsBefore(@Param("cardIds") Collection<Long> cardIds,
+                                                 @Param("transferDate") LocalDateTime transferDate,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+
+    // Все переводы постранично в виде плоских представлений
+    @Query(value = TRANSFER_VIEW, countQuery = "SELECT COUNT(t) FROM Transfer t")
+    Page<TransferView> findAllViews(Pageable pageable);
+
+    // Seek-пагинация всех переводов: первая порция без COUNT
+    @Query(TRANSFER_VIEW + "ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferView> findFirstSlice(Pageable pageable);
+
+    // Следующая порция всех переводов после курсора (transferDate, id)
+    @Query(TRANSFER_VIEW + "WHERE t.transferDate <= :transferDate " +
+            "AND (t.transferDate < :transferDate OR t.id < :id) ORDER BY t.transferDate DESC, t.id DESC")
+    Slice<TransferView> findSliceBefore(@Param("transferDate") LocalDateTime transferDate,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    // Перевод вместе с обеими картами одним запросом; владельцы остаются ленивыми, нужны только их id
+    @EntityGraph(attributePaths = {"fromCard", "toCard"})
+    Optional<Transfer> findWithCardsById(Long id);
 
     // Найти переводы по конкретной карте (где карта является отправителем или получателем)
     @Query("SELECT t FROM Transfer t WHERE t.fromCard.id = :cardId OR t.toCard.id = :cardId")
     Page<Transfer> findByCard(@Param("cardId") Long cardId, Pageable pageable);
 
-    // Найти переводы пользователя за период
-    @Query("SELECT t FROM Transfer t WHERE (t.fromCard.owner = :user OR t.toCard.owner = :user) " +
+    // Найти переводы по картам пользователя за период
+    @Query("SELECT t FROM Transfer t WHERE (t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds) " +
             "AND t.transferDate BETWEEN :startDate AND :endDate")
-    List<Transfer> findByUserAndPeriod(@Param("user") User user,
-                                       @Param("startDate") LocalDateTime startDate,
-                                       @Param("endDate") LocalDateTime endDate);
+    List<Transfer> findByCardIdsAndPeriod(@Param("cardIds") Collection<Long> cardIds,
+                                          @Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate);
+
+    // Потоковое чтение всей истории переводов пользователя для экспорта: курсор вперед, без COUNT и без сущностей
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(TRANSFER_VIEW + "WHERE t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds " +
+            "ORDER BY t.transferDate DESC, t.id DESC")
+    Stream<TransferView> streamByCardIds(@Param("cardIds") Collection<Long> cardIds);
+
+    // Потоковое чтение истории переводов пользователя за период для экспорта
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(TRANSFER_VIEW + "WHERE (t.fromCard.id IN :cardIds OR t.toCard.id IN :cardIds) " +
+            "AND t.transferDate BETWEEN :startDate AND :endDate ORDER BY t.transferDate DESC, t.id DESC")
+    Stream<TransferView> streamByCardIdsAndPeriod(@Param("cardIds") Collection<Long> cardIds,
+                                                  @Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
 
     // Найти переводы по сумме (больше указанной)
     Page<Transfer> findByAmountGreaterThan(BigDecimal amount, Pageable pageable);
@@ -4,17 +4,29 @@ import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // Пользователь вместе с ролями одним запросом: для аутентификации и проверки прав
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesByUsername(String username);
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesById(Long id);
+
     Boolean existsByUsername(String username);
 
     List<User> findByRolesContaining(Role role);
@@ -32,4 +44,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT COUNT(c) > 0 FROM Card c WHERE c.owner.id = :userId AND c.balance > 0")
     boolean hasUserCardsWithBalance(@Param("userId") Long userId);
+
+    // Перезаписать хэш пароля без загрузки пользователя: перехэширование при логине
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash, u.updatedAt = :now WHERE u.id = :id")
+    int updatePasswordHash(@Param("id") Long id,
+                           @Param("passwordHash") String passwordHash,
+                           @Param("now") LocalDateTime now);
+
+    // Какие из переданных id пользователей существуют - одним запросом на порцию импорта
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
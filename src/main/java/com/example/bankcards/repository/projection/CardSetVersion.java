@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+// Версия набора карт пользователя: количество и сумма id меняются при добавлении, удалении и передаче карты,
+// сумма версий растет при изменении любой из карт
+public record CardSetVersion(Long cardCount, Long cardIdSum, Long versionSum) {
+
+    public String stamp() {
+        return cardCount + "-" + (cardIdSum == null ? 0 : cardIdSum) + "-" + (versionSum == null ? 0 : versionSum);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.enums.CardStatus;
+
+import java.math.BigDecimal;
+
+// Количество карт и сумма балансов пользователя в разрезе статуса
+public record CardStatusSummary(CardStatus status, Long cardCount, BigDecimal totalBalance) {
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.repository.projection;
+
+// Версия одной карты: любое изменение строки увеличивает version
+public record CardVersion(Long cardId, Long ownerId, Long version) {
+
+    public String stamp() {
+        return cardId + "-" + version;
+    }
+}
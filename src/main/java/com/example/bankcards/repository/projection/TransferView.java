@@ -0,0 +1,14 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Плоское представление перевода для списков: собирается одним запросом без загрузки карт и владельцев
+public record TransferView(Long id,
+                           String fromCardMaskedNumber,
+                           String toCardMaskedNumber,
+                           BigDecimal amount,
+                           LocalDateTime transferDate,
+                           Long fromUserId,
+                           Long toUserId) {
+}
@@ -1,5 +1,10 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.enums.RoleName;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,6 +12,8 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,39 +22,77 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String TIMER_NAME = "bank.jwt.authentication";
+
     private final JwtTokenProvider tokenProvider;
 
     private final CustomUserDetailsService customUserDetailsService;
 
+    private final UserAuthorityCache userAuthorityCache;
+
+    private final MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
+        // Замеряется только разбор токена и загрузка пользователя, остальная цепочка фильтров сюда не входит
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "none";
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.getValidatedClaims(jwt) : null;
+
+            if (StringUtils.hasText(jwt) && claims == null) {
+                outcome = "rejected";
+            }
+
+            if (claims != null) {
+                UserDetails userDetails = tokenProvider.getUserPrincipalFromClaims(claims);
+                if (userDetails == null) {
+                    // Токен выпущен до появления claims с id и ролями - поднимаем пользователя из базы
+                    userDetails = customUserDetailsService.loadUserByUsername(claims.getSubject());
+                } else {
+                    // Подпись и claims берутся из кэша токенов, но роли - из кэша пользователей: он сбрасывается
+                    // после коммита изменения или удаления пользователя, так что токен не переживает их на 24 часа
+                    userDetails = withCurrentRoles((UserPrincipal) userDetails);
+                }
 
-                UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                outcome = "authenticated";
             }
+        } catch (ResourceNotFoundException ex) {
+            // Пользователь удален после выдачи токена - запрос идет дальше неаутентифицированным
+            outcome = "revoked";
         } catch (Exception ex) {
+            outcome = "error";
             logger.error("Could not set user authentication in security context", ex);
+        } finally {
+            sample.stop(meterRegistry.timer(TIMER_NAME, "outcome", outcome));
         }
 
         filterChain.doFilter(request, response);
     }
 
+    private UserPrincipal withCurrentRoles(UserPrincipal principal) {
+        List<GrantedAuthority> authorities = userAuthorityCache.getRoles(principal.getId()).stream()
+                .map(RoleName::name)
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                .toList();
+        return new UserPrincipal(principal.getId(), principal.getUsername(), null, authorities);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
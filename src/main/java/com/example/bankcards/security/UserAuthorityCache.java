@@ -0,0 +1,85 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.RoleName;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class UserAuthorityCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "user.authorities";
+
+    private final UserRepository userRepository;
+
+    // id пользователя -> роли; устаревает по TTL, при изменении пользователя сбрасывается явно
+    private final Cache<Long, Set<RoleName>> roles;
+
+    public UserAuthorityCache(UserRepository userRepository,
+                              @Value("${authority.cache.max-size:10000}") long cacheMaxSize,
+                              @Value("${authority.cache.ttl:PT5M}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.roles = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isAdmin(Long userId) {
+        // Роли текущего пользователя тоже берутся из кэша, а не из UserPrincipal: иначе сброс записи
+        // после смены ролей не действовал бы на запрос, аутентифицированный до коммита
+        return getRoles(userId).contains(RoleName.ADMIN);
+    }
+
+    public Set<RoleName> getRoles(Long userId) {
+        return roles.get(userId, this::loadRoles);
+    }
+
+    // Внутри транзакции запись сбрасывается только после коммита: иначе параллельный getRoles успел бы
+    // перечитать еще не зафиксированные, то есть старые роли и держать их в кэше до конца TTL
+    public void evict(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            roles.invalidate(userId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                roles.invalidate(userId);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, roles, CACHE_NAME);
+    }
+
+    private Set<RoleName> loadRoles(Long userId) {
+        User user = userRepository.findWithRolesById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+
+        Set<RoleName> roleNames = user.getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(RoleName.class)));
+        return Set.copyOf(roleNames);
+    }
+}
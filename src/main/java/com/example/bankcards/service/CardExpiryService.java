@@ -0,0 +1,57 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+public class CardExpiryService {
+
+    public static final String EXPIRED_COUNTER = "bank.cards.expired";
+
+    private final CardRepository cardRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int batchSize;
+
+    public CardExpiryService(CardRepository cardRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${card-expiry.batch-size:500}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    // Каждая порция - отдельная короткая транзакция, так что сборщик не держит блокировки на таблице карт
+    // и не мешает переводам. Неполная порция означает, что просроченных активных карт не осталось
+    @Scheduled(fixedDelayString = "${card-expiry.sweep-interval:PT1H}")
+    public int expireCards() {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status ->
+                    cardRepository.expireActiveCardsBefore(today, LocalDateTime.now(), batchSize));
+            total += updated;
+        } while (updated == batchSize);
+
+        if (total > 0) {
+            meterRegistry.counter(EXPIRED_COUNTER).increment(total);
+            log.info("Marked {} cards as expired", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.enums.CardImportStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Состояние фоновой загрузки карт: пишет поток импорта, читают запросы прогресса
+public class CardImportJob {
+
+    public record RowError(long row, String message) {
+    }
+
+    @Getter
+    private final String id;
+
+    // Ошибки по строкам хранятся до лимита, дальше только считаются, чтобы отчет не рос вместе с файлом
+    private final int maxReportedErrors;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    private final AtomicLong processedRows = new AtomicLong();
+
+    private final AtomicLong importedRows = new AtomicLong();
+
+    private final AtomicLong failedRows = new AtomicLong();
+
+    private final CompletableFuture<CardImportJob> completion = new CompletableFuture<>();
+
+    @Getter
+    private volatile CardImportStatus status = CardImportStatus.QUEUED;
+
+    @Getter
+    private volatile LocalDateTime startedAt;
+
+    @Getter
+    private volatile LocalDateTime finishedAt;
+
+    public CardImportJob(String id, int maxReportedErrors) {
+        this.id = id;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    public long getImportedRows() {
+        return importedRows.get();
+    }
+
+    public long getFailedRows() {
+        return failedRows.get();
+    }
+
+    public synchronized List<RowError> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    public boolean isErrorsTruncated() {
+        return failedRows.get() > maxReportedErrors;
+    }
+
+    // Завершается вместе с задачей; нужен тем, кто ждет результат в том же процессе
+    public CompletableFuture<CardImportJob> getCompletion() {
+        return completion;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = CardImportStatus.RUNNING;
+    }
+
+    void imported(int rows) {
+        processedRows.addAndGet(rows);
+        importedRows.addAndGet(rows);
+    }
+
+    void rejected(long row, String message) {
+        processedRows.incrementAndGet();
+        if (failedRows.incrementAndGet() <= maxReportedErrors) {
+            synchronized (this) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+
+    void complete() {
+        finish(CardImportStatus.COMPLETED);
+    }
+
+    // Ошибка всей задачи (нечитаемый файл, отсутствующие колонки) попадает в отчет как строка 0
+    void fail(String message) {
+        synchronized (this) {
+            errors.add(new RowError(0, message));
+        }
+        finish(CardImportStatus.FAILED);
+    }
+
+    private void finish(CardImportStatus finalStatus) {
+        finishedAt = LocalDateTime.now();
+        status = finalStatus;
+        completion.complete(this);
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.enums.DataFormat;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.exception.ValidationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.EncryptionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class CardImportService {
+
+    static final List<String> CSV_COLUMNS = List.of("cardNumber", "cardHolder", "expirationDate", "userId");
+
+    private final CardRepository cardRepository;
+
+    private final UserRepository userRepository;
+
+    private final EncryptionUtils encryptionUtils;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    // Разбор файла и запись порций идут в потоках задач, шифрование номеров - в отдельном пуле.
+    // Очередь задач ограничена: каждая ожидающая задача держит на диске временный файл с телом запроса
+    private final ExecutorService jobExecutor;
+
+    private final ExecutorService encryptionExecutor;
+
+    private final Cache<String, CardImportJob> jobs;
+
+    public CardImportService(CardRepository cardRepository,
+                             UserRepository userRepository,
+                             EncryptionUtils encryptionUtils,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${card-import.chunk-size:1000}") int chunkSize,
+                             @Value("${card-import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                             @Value("${card-import.queue-capacity:8}") int queueCapacity,
+                             @Value("${card-import.encryption-threads:4}") int encryptionThreads,
+                             @Value("${card-import.max-reported-errors:1000}") int maxReportedErrors,
+                             @Value("${card-import.job-retention:PT24H}") Duration jobRetention,
+                             @Value("${card-import.max-retained-jobs:1000}") long maxRetainedJobs) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.encryptionUtils = encryptionUtils;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("card-import-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.encryptionExecutor = Executors.newFixedThreadPool(encryptionThreads,
+                Thread.ofPlatform().name("card-import-crypto-", 0).daemon().factory());
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxRetainedJobs)
+                .expireAfterWrite(jobRetention)
+                .build();
+    }
+
+    // Тело запроса сначала сливается во временный файл: запрос завершается сразу, а разбор идет уже из файла
+    public CardImportJob startImport(InputStream body, DataFormat format) throws IOException {
+        Path file = Files.createTempFile("card-import-", "." + format.getFileExtension());
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        CardImportJob job = new CardImportJob(UUID.randomUUID().toString(), maxReportedErrors);
+        try {
+            jobExecutor.execute(() -> run(job, file, format));
+        } catch (RejectedExecutionException e) {
+            Files.deleteIfExists(file);
+            throw new ServiceOverloadedException("Too many card imports in progress, please retry later", e);
+        }
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    public CardImportJob getJob(String jobId) {
+        CardImportJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found: " + jobId);
+        }
+        return job;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        encryptionExecutor.shutdownNow();
+    }
+
+    private void run(CardImportJob job, Path file, DataFormat format) {
+        job.start();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            importRows(job, reader, format);
+            job.complete();
+        } catch (Exception e) {
+            log.error("Card import {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete card import file {}", file, e);
+            }
+        }
+    }
+
+    // Файл читается построчно, в памяти держится только текущая порция строк
+    private void importRows(CardImportJob job, BufferedReader reader, DataFormat format) throws IOException {
+        long row = 0;
+        int[] columns = null;
+        if (format == DataFormat.CSV) {
+            columns = csvColumns(reader.readLine());
+            row++;
+        }
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                CreateCardRequest request = format == DataFormat.CSV ? parseCsv(line, columns) : parseJson(line);
+                validate(request);
+                chunk.add(new ImportRow(row, request));
+            } catch (ValidationException e) {
+                job.rejected(row, e.getMessage());
+            }
+
+            if (chunk.size() == chunkSize) {
+                importChunk(job, chunk);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(job, chunk);
+        }
+    }
+
+    private void importChunk(CardImportJob job, List<ImportRow> chunk) {
+        // Владельцы порции проверяются одним запросом
+        Set<Long> userIds = chunk.stream().map(row -> row.request().getUserId()).collect(Collectors.toSet());
+        Set<Long> existingUserIds = new HashSet<>(userRepository.findExistingIds(userIds));
+
+        List<CompletableFuture<PreparedCard>> prepared = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (!existingUserIds.contains(row.request().getUserId())) {
+                job.rejected(row.row(), "User not found with id: " + row.request().getUserId());
+                continue;
+            }
+            prepared.add(CompletableFuture.supplyAsync(() -> prepare(row), encryptionExecutor));
+        }
+
+        List<PreparedCard> cards = prepared.stream().map(CompletableFuture::join).toList();
+        if (cards.isEmpty()) {
+            return;
+        }
+
+        // Уникальность номеров: повторы внутри порции и уже сохраненные карты одной выборкой по хэшам
+        Set<ByteBuffer> takenHashes = cardRepository.findExistingNumberHashes(
+                        cards.stream().map(PreparedCard::numberHash).toList()).stream()
+                .map(ByteBuffer::wrap)
+                .collect(Collectors.toCollection(HashSet::new));
+        List<PreparedCard> unique = new ArrayList<>(cards.size());
+        for (PreparedCard card : cards) {
+            if (takenHashes.add(ByteBuffer.wrap(card.numberHash()))) {
+                unique.add(card);
+            } else {
+                job.rejected(card.row().row(), "Card with this number already exists");
+            }
+        }
+        if (unique.isEmpty()) {
+            return;
+        }
+
+        // Каждая порция - своя транзакция: вставки уходят JDBC-пакетами, контекст персистентности
+        // закрывается вместе с транзакцией и не растет с размером файла
+        try {
+            transactionTemplate.executeWithoutResult(status -> cardRepository.saveAll(unique.stream()
+                    .map(card -> CardService.newCard(card.row().request(), card.encryptedNumber(), card.numberHash(),
+                            userRepository.getReferenceById(card.row().request().getUserId())))
+                    .toList()));
+            job.imported(unique.size());
+        } catch (DataAccessException e) {
+            // Номер могли занять параллельно после проверки - порция откатывается целиком
+            log.warn("Card import {} chunk rolled back", job.getId(), e);
+            for (PreparedCard card : unique) {
+                job.rejected(card.row().row(), "Chunk could not be saved: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private PreparedCard prepare(ImportRow row) {
+        String cardNumber = row.request().getCardNumber();
+        return new PreparedCard(row, encryptionUtils.blindIndex(cardNumber), encryptionUtils.encrypt(cardNumber));
+    }
+
+    private void validate(CreateCardRequest request) {
+        Set<ConstraintViolation<CreateCardRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private CreateCardRequest parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, CreateCardRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static int[] csvColumns(String header) {
+        if (header == null) {
+            throw new ValidationException("CSV header is missing");
+        }
+
+        List<String> names = splitCsv(header).stream().map(String::trim).toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new ValidationException("CSV header must contain columns " + CSV_COLUMNS);
+            }
+        }
+        return columns;
+    }
+
+    private static CreateCardRequest parseCsv(String line, int[] columns) {
+        List<String> values = splitCsv(line);
+        for (int column : columns) {
+            if (column >= values.size()) {
+                throw new ValidationException("Expected " + CSV_COLUMNS.size() + " columns");
+            }
+        }
+
+        CreateCardRequest request = new CreateCardRequest();
+        request.setCardNumber(values.get(columns[0]).trim());
+        request.setCardHolder(values.get(columns[1]).trim());
+        try {
+            String expirationDate = values.get(columns[2]).trim();
+            request.setExpirationDate(expirationDate.isEmpty() ? null : LocalDate.parse(expirationDate));
+            String userId = values.get(columns[3]).trim();
+            request.setUserId(userId.isEmpty() ? null : Long.valueOf(userId));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new ValidationException("Invalid value: " + e.getMessage());
+        }
+        return request;
+    }
+
+    // Поля разделяются запятыми; значение в кавычках может содержать запятые, кавычка внутри удваивается
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private record ImportRow(long row, CreateCardRequest request) {
+    }
+
+    private record PreparedCard(ImportRow row, byte[] numberHash, String encryptedNumber) {
+    }
+}
@@ -9,11 +9,16 @@ import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.BusinessLogicException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.PendingCreditRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardSetVersion;
+import com.example.bankcards.repository.projection.CardVersion;
 import com.example.bankcards.util.EncryptionUtils;
+import com.example.bankcards.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,26 +38,35 @@ public class CardService {
 
     private final UserRepository userRepository;
 
+    private final PendingCreditRepository pendingCreditRepository;
+
     public Card createCard(CreateCardRequest request) {
         User user = userService.findById(request.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + request.getUserId()));
 
-        String encryptedCardNumber = encryptionUtils.encrypt(request.getCardNumber());
-        String lastFour = request.getCardNumber().substring(request.getCardNumber().length() - 4);
-
-        if (cardRepository.existsByNumber(encryptedCardNumber)) {
+        byte[] numberHash = encryptionUtils.blindIndex(request.getCardNumber());
+        if (cardRepository.existsByNumberHash(numberHash)) {
             throw new BusinessLogicException("Card with this number already exists");
         }
 
+        String encryptedCardNumber = encryptionUtils.encrypt(request.getCardNumber());
+
+        return cardRepository.save(newCard(request, encryptedCardNumber, numberHash, user));
+    }
+
+    // Новая активная карта из запроса; номер уже зашифрован, хэш посчитан вызывающим кодом
+    static Card newCard(CreateCardRequest request, String encryptedCardNumber, byte[] numberHash, User owner) {
+        String lastFour = request.getCardNumber().substring(request.getCardNumber().length() - 4);
+
         Card card = new Card();
         card.setNumber(encryptedCardNumber);
+        card.setNumberHash(numberHash);
         card.setMaskedNumber("**** **** **** " + lastFour);
         card.setCardHolder(request.getCardHolder());
         card.setExpiry(request.getExpirationDate());
         card.setStatus(CardStatus.ACTIVE);
-        card.setOwner(user);
-
-        return cardRepository.save(card);
+        card.setOwner(owner);
+        return card;
     }
 
     public Card getCardById(Long cardId, Long userId) {
@@ -66,11 +80,30 @@ public class CardService {
         return card;
     }
 
+    // Версия карты для условного GET: те же проверки доступа, что у getCardById, но без загрузки карты
+    @Transactional(readOnly = true)
+    public CardVersion getCardVersion(Long cardId, Long userId) {
+        CardVersion version = cardRepository.findVersionById(cardId)
+                .orElseThrow(() -> new ResourceNotFoundException("Card not found with id: " + cardId));
+
+        if (!version.ownerId().equals(userId) && !userService.isAdmin(userId)) {
+            throw new AccessDeniedException("Access denied");
+        }
+
+        return version;
+    }
+
+    @Transactional(readOnly = true)
+    public CardSetVersion getUserCardsVersion(Long userId) {
+        return cardRepository.findVersionByOwnerId(userId);
+    }
+
     public Page<Card> getUserCards(Long userId, Pageable pageable) {
-        User user = userService.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
 
-        return cardRepository.findByOwner(user, pageable);
+        return cardRepository.findByOwnerId(userId, pageable);
     }
 
     public Page<Card> getAllCards(Pageable pageable, Long adminUserId) {
@@ -81,6 +114,17 @@ public class CardService {
         return cardRepository.findAll(pageable);
     }
 
+    public Slice<Card> getAllCards(KeysetCursor cursor, int size, Long adminUserId) {
+        Pageable limit = KeysetCursor.limit(size);
+        if (!userService.isAdmin(adminUserId)) {
+            throw new AccessDeniedException("Access denied. Admin role required.");
+        }
+
+        return cursor == null
+                ? cardRepository.findFirstSlice(limit)
+                : cardRepository.findSliceBefore(cursor.timestamp(), cursor.id(), limit);
+    }
+
     public Card updateCard(Long cardId, UpdateCardRequest request, Long userId) {
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new ResourceNotFoundException("Card not found with id: " + cardId));
@@ -124,6 +168,12 @@ public class CardService {
             throw new BusinessLogicException("Cannot delete card with non-zero balance");
         }
 
+        // Несброшенные зачисления горячей карты - это еще не учтенный баланс, а внешний ключ на карту
+        // превратил бы удаление в нарушение ограничения вместо понятной ошибки
+        if (pendingCreditRepository.existsByCardId(cardId)) {
+            throw new BusinessLogicException("Cannot delete card with pending credits");
+        }
+
         cardRepository.delete(card);
     }
 
@@ -159,29 +209,29 @@ public class CardService {
 
     @Transactional(readOnly = true)
     public BigDecimal getUserTotalBalance(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        List<Card> userCards = cardRepository.findByOwner(user);
+        return cardRepository.sumBalanceByOwnerId(userId);
+    }
 
-        return userCards.stream()
-                .map(Card::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Transactional(readOnly = true)
+    public CardSummary getUserCardSummary(Long userId) {
+        return CardSummary.of(cardRepository.summarizeByOwnerId(userId));
     }
 
     @Transactional(readOnly = true)
     public List<Card> getUserActiveCards(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
 
-        return cardRepository.findByOwnerAndStatus(user, CardStatus.ACTIVE);
+        return cardRepository.findByOwnerIdAndStatus(userId, CardStatus.ACTIVE);
     }
 
     @Transactional(readOnly = true)
     public List<Card> getUserBlockedCards(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
 
-        return cardRepository.findByOwnerAndStatus(user, CardStatus.BLOCKED);
+        return cardRepository.findByOwnerIdAndStatus(userId, CardStatus.BLOCKED);
     }
 }
@@ -0,0 +1,33 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.repository.projection.CardStatusSummary;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CardSummary(BigDecimal totalBalance, long totalCards, long activeCards, long blockedCards,
+                          long expiredCards) {
+
+    public static CardSummary of(List<CardStatusSummary> byStatus) {
+        BigDecimal totalBalance = BigDecimal.ZERO;
+        long totalCards = 0;
+        long activeCards = 0;
+        long blockedCards = 0;
+        long expiredCards = 0;
+
+        for (CardStatusSummary summary : byStatus) {
+            totalBalance = totalBalance.add(summary.totalBalance());
+            totalCards += summary.cardCount();
+            if (summary.status() == CardStatus.ACTIVE) {
+                activeCards = summary.cardCount();
+            } else if (summary.status() == CardStatus.BLOCKED) {
+                blockedCards = summary.cardCount();
+            } else if (summary.status() == CardStatus.EXPIRED) {
+                expiredCards = summary.cardCount();
+            }
+        }
+
+        return new CardSummary(totalBalance, totalCards, activeCards, blockedCards, expiredCards);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Фоновый сброс отложенных зачислений. Без горячих карт в настройках бин не создается и не опрашивает
+// очередь каждые 200 мс на каждом экземпляре
+@Component
+@ConditionalOnExpression("!'${transfer.hot-cards.card-ids:}'.isBlank()")
+@RequiredArgsConstructor
+public class HotCardFlushScheduler {
+
+    private final HotCardLedger hotCardLedger;
+
+    @Scheduled(fixedDelayString = "${transfer.hot-cards.flush-interval:PT0.2S}",
+            initialDelayString = "${transfer.hot-cards.flush-interval:PT0.2S}")
+    public void flushPendingCredits() {
+        hotCardLedger.flushPendingCredits();
+    }
+}
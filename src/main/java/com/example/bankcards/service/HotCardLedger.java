@@ -0,0 +1,149 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.PendingCredit;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.PendingCreditRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Горячие карты (расчетные счета мерчантов), на которые приходится большая доля переводов. Зачисления на них
+// не блокируют строку карты, а копятся в очереди pending_card_credits и применяются одним UPDATE на карту
+// за интервал сброса. Списания с них по-прежнему проверяют остаток синхронно
+@Slf4j
+@Component
+public class HotCardLedger {
+
+    public static final String COALESCED_CREDITS = "bank.hot_card.coalesced_credits";
+
+    private final PendingCreditRepository pendingCreditRepository;
+
+    private final CardRepository cardRepository;
+
+    private final TransactionOperations transactionOperations;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Long> hotCardIds;
+
+    private final int flushBatchSize;
+
+    // Фиксированный набор блокировок вместо блокировки на карту: память не растет, а горячих карт единицы
+    private final ReentrantLock[] stripes;
+
+    public HotCardLedger(PendingCreditRepository pendingCreditRepository,
+                         CardRepository cardRepository,
+                         TransactionOperations transactionOperations,
+                         MeterRegistry meterRegistry,
+                         @Value("${transfer.hot-cards.card-ids:}") Set<Long> hotCardIds,
+                         @Value("${transfer.hot-cards.lock-stripes:64}") int lockStripes,
+                         @Value("${transfer.hot-cards.flush-batch-size:1000}") int flushBatchSize) {
+        this.pendingCreditRepository = pendingCreditRepository;
+        this.cardRepository = cardRepository;
+        this.transactionOperations = transactionOperations;
+        this.meterRegistry = meterRegistry;
+        this.hotCardIds = Set.copyOf(hotCardIds);
+        this.flushBatchSize = flushBatchSize;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isHot(Long cardId) {
+        return hotCardIds.contains(cardId);
+    }
+
+    // Списания с одной горячей карты ждут друг друга на блокировке в памяти еще до открытия транзакции:
+    // ожидающие потоки не держат соединений и не выстраиваются в очередь на блокировку строки в базе.
+    // Между экземплярами приложения списания по-прежнему разделяет блокировка строки
+    public <T> T withDebitLock(Long cardId, Supplier<T> debit) {
+        if (!isHot(cardId)) {
+            return debit.get();
+        }
+
+        ReentrantLock lock = stripes[Math.floorMod(Long.hashCode(cardId), stripes.length)];
+        lock.lock();
+        try {
+            return debit.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Зачисление пишется в очередь в транзакции перевода, поэтому откатывается вместе с ним и не теряется
+    // при падении процесса. Баланс карты увеличится при ближайшем сбросе
+    public void deferCredit(Card card, BigDecimal amount) {
+        PendingCredit credit = new PendingCredit();
+        credit.setCardId(card.getId());
+        credit.setAmount(amount);
+        pendingCreditRepository.save(credit);
+    }
+
+    // Периодически очередь сбрасывает HotCardFlushScheduler, только если горячие карты заданы. При старте очередь
+    // сбрасывается один раз, чтобы не зависли зачисления карты, убранной из списка
+    @EventListener(ApplicationReadyEvent.class)
+    public void flushOnStartup() {
+        int flushed = flushPendingCredits();
+        if (flushed > 0) {
+            log.info("Flushed {} pending hot card credits on startup", flushed);
+        }
+    }
+
+    // Каждая порция - отдельная короткая транзакция. Неполная порция означает, что очередь пуста
+    public int flushPendingCredits() {
+        int total = 0;
+        int flushed;
+        do {
+            flushed = transactionOperations.execute(this::flushBatch);
+            total += flushed;
+        } while (flushed == flushBatchSize);
+        return total;
+    }
+
+    private int flushBatch(TransactionStatus status) {
+        List<PendingCredit> credits = pendingCreditRepository.findOldest(PageRequest.ofSize(flushBatchSize));
+        if (credits.isEmpty()) {
+            return 0;
+        }
+
+        // Удаление до обновления балансов: строки очереди остаются заблокированы до коммита, и параллельный
+        // сброс не применит их второй раз. Если часть строк уже удалил он, порция откатывается целиком
+        List<Long> ids = credits.stream().map(PendingCredit::getId).toList();
+        if (pendingCreditRepository.deleteByIdIn(ids) != ids.size()) {
+            log.debug("Pending credits were taken by a concurrent flush, rolling back");
+            status.setRollbackOnly();
+            return 0;
+        }
+
+        // Карты обновляются по возрастанию id, так же как переводы берут блокировки строк
+        Map<Long, List<PendingCredit>> byCard = credits.stream()
+                .collect(Collectors.groupingBy(PendingCredit::getCardId, TreeMap::new, Collectors.toList()));
+        LocalDateTime now = LocalDateTime.now();
+        byCard.forEach((cardId, cardCredits) -> {
+            BigDecimal amount = cardCredits.stream()
+                    .map(PendingCredit::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            cardRepository.addToBalance(cardId, amount, now);
+            meterRegistry.summary(COALESCED_CREDITS).record(cardCredits.size());
+        });
+        return credits.size();
+    }
+}
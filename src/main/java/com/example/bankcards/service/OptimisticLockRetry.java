@@ -0,0 +1,77 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Повтор транзакции, проигравшей конфликт версий. Конфликт обнаруживается при flush или коммите, когда все
+// прочитанное в транзакции уже устарело, поэтому повторяется транзакция целиком, а не отдельный UPDATE
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+
+    public static final String RETRY_COUNTER = "bank.optimistic_lock.retries";
+    public static final String EXHAUSTED_COUNTER = "bank.optimistic_lock.exhausted";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    public OptimisticLockRetry(MeterRegistry meterRegistry,
+                               @Value("${transfer.retry.max-attempts:5}") int maxAttempts,
+                               @Value("${transfer.retry.initial-backoff:PT0.005S}") Duration initialBackoff,
+                               @Value("${transfer.retry.max-backoff:PT0.1S}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    // transaction должна сама открывать и коммитить транзакцию. Если вызов уже идет внутри транзакции, конфликт
+    // помечает ее на откат и повторять здесь бессмысленно - повтор делает тот, кто эту транзакцию открыл
+    public <T> T execute(String operation, Supplier<T> transaction) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transaction.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter(EXHAUSTED_COUNTER, "operation", operation).increment();
+                    log.warn("{} gave up after {} optimistic lock conflicts", operation, attempt);
+                    throw e;
+                }
+                meterRegistry.counter(RETRY_COUNTER, "operation", operation).increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    // Экспоненциальная задержка со случайной долей: конкуренты за одну карту расходятся во времени,
+    // а не сталкиваются снова на следующей попытке
+    private void backoff(int attempt, OptimisticLockingFailureException conflict) {
+        long ceiling = Math.min(maxBackoff.toNanos(), initialBackoff.toNanos() << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
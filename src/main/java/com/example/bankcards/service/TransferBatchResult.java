@@ -0,0 +1,14 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Transfer;
+
+public record TransferBatchResult(int index, Transfer transfer, String error) {
+
+    public static TransferBatchResult success(int index, Transfer transfer) {
+        return new TransferBatchResult(index, transfer, null);
+    }
+
+    public static TransferBatchResult failure(int index, String error) {
+        return new TransferBatchResult(index, null, error);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.enums.DataFormat;
+import com.example.bankcards.exception.ValidationException;
+import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.projection.TransferView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class TransferExportService {
+
+    static final String CSV_HEADER = "id,fromCardMaskedNumber,toCardMaskedNumber,amount,transferDate,fromUserId,toUserId";
+
+    private final TransferRepository transferRepository;
+    private final CardRepository cardRepository;
+    private final TransferMapper transferMapper;
+    private final ObjectMapper objectMapper;
+
+    // Проверка периода до начала ответа: после первой записи статус ошибки отдать уже нельзя
+    public static void validatePeriod(LocalDateTime startDate, LocalDateTime endDate) {
+        if ((startDate == null) != (endDate == null)) {
+            throw new ValidationException("Both startDate and endDate must be provided");
+        }
+        if (startDate != null && startDate.isAfter(endDate)) {
+            throw new ValidationException("startDate must not be after endDate");
+        }
+    }
+
+    // Строки читаются курсором и сразу пишутся в поток, поэтому память не зависит от длины истории.
+    // Читаются плоские TransferView, а не сущности, так что контекст персистентности не растет
+    @Transactional(readOnly = true)
+    public long exportUserTransfers(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                    DataFormat format, OutputStream outputStream) throws IOException {
+        validatePeriod(startDate, endDate);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        List<Long> cardIds = cardRepository.findIdsByOwnerId(userId);
+        long rows = 0;
+        if (!cardIds.isEmpty()) {
+            ObjectWriter jsonWriter = objectMapper.writer();
+            try (Stream<TransferView> transfers = startDate == null
+                    ? transferRepository.streamByCardIds(cardIds)
+                    : transferRepository.streamByCardIdsAndPeriod(cardIds, startDate, endDate)) {
+                Iterator<TransferView> iterator = transfers.iterator();
+                while (iterator.hasNext()) {
+                    TransferView transfer = iterator.next();
+                    if (format == DataFormat.CSV) {
+                        writeCsvRow(writer, transfer);
+                    } else {
+                        writer.write(jsonWriter.writeValueAsString(transferMapper.transferViewToTransferDTOResponse(transfer)));
+                        writer.write('\n');
+                    }
+                    // Первая строка уходит клиенту сразу, дальше отправкой управляет буфер
+                    if (++rows == 1) {
+                        writer.flush();
+                    }
+                }
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, TransferView transfer) throws IOException {
+        writer.write(String.valueOf(transfer.id()));
+        writer.write(',');
+        writer.write(csvValue(transfer.fromCardMaskedNumber()));
+        writer.write(',');
+        writer.write(csvValue(transfer.toCardMaskedNumber()));
+        writer.write(',');
+        writer.write(transfer.amount().toPlainString());
+        writer.write(',');
+        writer.write(String.valueOf(transfer.transferDate()));
+        writer.write(',');
+        writer.write(String.valueOf(transfer.fromUserId()));
+        writer.write(',');
+        writer.write(String.valueOf(transfer.toUserId()));
+        writer.write('\n');
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
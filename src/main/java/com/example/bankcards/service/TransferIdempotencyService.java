@@ -0,0 +1,164 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.TransferDTOResponse;
+import com.example.bankcards.entity.TransferIdempotencyKey;
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.exception.ValidationException;
+import com.example.bankcards.repository.TransferIdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class TransferIdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final TransferIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final Duration retention;
+
+    private final Cache<String, StoredTransfer> cache;
+
+    public TransferIdempotencyService(TransferIdempotencyKeyRepository idempotencyKeyRepository,
+                                      ObjectMapper objectMapper,
+                                      TransactionTemplate transactionTemplate,
+                                      OptimisticLockRetry optimisticLockRetry,
+                                      @Value("${idempotency.cache.max-size:10000}") long cacheMaxSize,
+                                      @Value("${idempotency.cache.ttl:PT10M}") Duration cacheTtl,
+                                      @Value("${idempotency.retention:P1D}") Duration retention) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.retention = retention;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public TransferDTOResponse execute(Long userId, String idempotencyKey, TransferRequest request,
+                                       Supplier<TransferDTOResponse> transfer) {
+        validateKey(idempotencyKey);
+        String fingerprint = fingerprint(request);
+
+        Optional<TransferDTOResponse> replay = findStoredResponse(userId, idempotencyKey, fingerprint);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+
+        try {
+            // Перевод и ключ в одной транзакции, поэтому при конфликте версий карты повторяются вместе
+            TransferDTOResponse response = optimisticLockRetry.execute("transfer", () -> transactionTemplate.execute(
+                    status -> transferAndRecord(userId, idempotencyKey, fingerprint, transfer)));
+            cache.put(cacheKey(userId, idempotencyKey), new StoredTransfer(fingerprint, response));
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный запрос с тем же ключом успел закоммитить перевод первым, наш откатан целиком
+            return findStoredResponse(userId, idempotencyKey, fingerprint)
+                    .orElseThrow(() -> new BusinessLogicException("Transfer with this idempotency key is already in progress", e));
+        }
+    }
+
+    private TransferDTOResponse transferAndRecord(Long userId, String idempotencyKey, String fingerprint,
+                                                  Supplier<TransferDTOResponse> transfer) {
+        TransferDTOResponse result = transfer.get();
+
+        TransferIdempotencyKey record = new TransferIdempotencyKey();
+        record.setUserId(userId);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestFingerprint(fingerprint);
+        record.setResponse(writeResponse(result));
+        idempotencyKeyRepository.saveAndFlush(record);
+
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:PT1H}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} expired transfer idempotency keys", deleted);
+        }
+    }
+
+    private Optional<TransferDTOResponse> findStoredResponse(Long userId, String idempotencyKey, String fingerprint) {
+        String cacheKey = cacheKey(userId, idempotencyKey);
+        StoredTransfer stored = cache.getIfPresent(cacheKey);
+
+        if (stored == null) {
+            stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(record -> new StoredTransfer(record.getRequestFingerprint(), readResponse(record.getResponse())))
+                    .orElse(null);
+            if (stored == null) {
+                return Optional.empty();
+            }
+            cache.put(cacheKey, stored);
+        }
+
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new ValidationException("Idempotency key was already used for a different transfer");
+        }
+
+        return Optional.of(stored.response());
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private String fingerprint(TransferRequest request) {
+        return request.getFromCardId() + ":" + request.getToCardId() + ":"
+                + request.getAmount().stripTrailingZeros().toPlainString();
+    }
+
+    private String cacheKey(Long userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+
+    private String writeResponse(TransferDTOResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new BusinessLogicException("Failed to store transfer response", e);
+        }
+    }
+
+    private TransferDTOResponse readResponse(String response) {
+        try {
+            return objectMapper.readValue(response, TransferDTOResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new BusinessLogicException("Failed to read stored transfer response", e);
+        }
+    }
+
+    private record StoredTransfer(String fingerprint, TransferDTOResponse response) {
+    }
+}
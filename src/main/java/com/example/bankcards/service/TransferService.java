@@ -1,9 +1,10 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
-import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.TransferLocking;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.BusinessLogicException;
 import com.example.bankcards.exception.ResourceNotFoundException;
@@ -11,29 +12,119 @@ import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.repository.projection.TransferView;
+import com.example.bankcards.security.UserAuthorityCache;
+import com.example.bankcards.util.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Transactional
 public class TransferService {
 
+    public static final String TRANSFER_TIMER = "bank.transfer";
+    public static final String TRANSFER_REJECTED_COUNTER = "bank.transfer.rejected";
+
     private final TransferRepository transferRepository;
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final UserAuthorityCache userAuthorityCache;
+    private final MeterRegistry meterRegistry;
+    private final TransactionOperations transactionOperations;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final HotCardLedger hotCardLedger;
+    private final TransferLocking locking;
+
+    public TransferService(TransferRepository transferRepository,
+                           CardRepository cardRepository,
+                           UserRepository userRepository,
+                           UserAuthorityCache userAuthorityCache,
+                           MeterRegistry meterRegistry,
+                           TransactionOperations transactionOperations,
+                           OptimisticLockRetry optimisticLockRetry,
+                           HotCardLedger hotCardLedger,
+                           @Value("${transfer.locking:PESSIMISTIC}") TransferLocking locking) {
+        this.transferRepository = transferRepository;
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.userAuthorityCache = userAuthorityCache;
+        this.meterRegistry = meterRegistry;
+        this.transactionOperations = transactionOperations;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.hotCardLedger = hotCardLedger;
+        this.locking = locking;
+    }
 
+    // Транзакция открывается здесь, а не прокси, чтобы при конфликте версий ее можно было повторить целиком.
+    // Вызванный внутри чужой транзакции (перевод с Idempotency-Key) перевод выполняется в ней
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Transfer transferBetweenUserCards(Long fromCardId, Long toCardId, BigDecimal amount, Long userId) {
-        Card fromCard = cardRepository.findByIdAndOwnerId(fromCardId, userId)
+        // Время фиксации транзакции и повторы входят в таймер, так что конфликты видны и по задержке
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Transfer transfer = hotCardLedger.withDebitLock(fromCardId, () -> optimisticLockRetry.execute("transfer",
+                    () -> transactionOperations.execute(status -> loadAndTransfer(fromCardId, toCardId, amount, userId))));
+            outcome = "success";
+            return transfer;
+        } finally {
+            sample.stop(meterRegistry.timer(TRANSFER_TIMER, "outcome", outcome));
+        }
+    }
+
+    private Transfer loadAndTransfer(Long fromCardId, Long toCardId, BigDecimal amount, Long userId) {
+        if (hotCardLedger.isHot(toCardId)) {
+            // Горячая карта зачисления читается без блокировки: ее строку изменит только сброс отложенных зачислений
+            Card fromCard = (locking == TransferLocking.OPTIMISTIC
+                    ? cardRepository.findByIdAndOwnerId(fromCardId, userId)
+                    : cardRepository.findByIdAndOwnerIdForUpdate(fromCardId, userId))
+                    .orElseThrow(() -> new AccessDeniedException("Source card not found or access denied"));
+            Card toCard = cardRepository.findByIdAndOwnerId(toCardId, userId)
+                    .orElseThrow(() -> new AccessDeniedException("Target card not found or access denied"));
+            return performTransfer(fromCard, toCard, amount);
+        }
+
+        if (locking == TransferLocking.OPTIMISTIC) {
+            // Без блокировок порядок чтения не важен: параллельное изменение карты обнаружит проверка версии
+            Card fromCard = cardRepository.findByIdAndOwnerId(fromCardId, userId)
+                    .orElseThrow(() -> new AccessDeniedException("Source card not found or access denied"));
+            Card toCard = cardRepository.findByIdAndOwnerId(toCardId, userId)
+                    .orElseThrow(() -> new AccessDeniedException("Target card not found or access denied"));
+            return performTransfer(fromCard, toCard, amount);
+        }
+
+        // Строки карт блокируются всегда по возрастанию id, поэтому встречные переводы A->B и B->A не дают дедлока
+        boolean fromLockedFirst = fromCardId <= toCardId;
+        Optional<Card> firstLocked = cardRepository.findByIdAndOwnerIdForUpdate(
+                fromLockedFirst ? fromCardId : toCardId, userId);
+        Optional<Card> secondLocked = cardRepository.findByIdAndOwnerIdForUpdate(
+                fromLockedFirst ? toCardId : fromCardId, userId);
+
+        Card fromCard = (fromLockedFirst ? firstLocked : secondLocked)
                 .orElseThrow(() -> new AccessDeniedException("Source card not found or access denied"));
 
-        Card toCard = cardRepository.findByIdAndOwnerId(toCardId, userId)
+        Card toCard = (fromLockedFirst ? secondLocked : firstLocked)
                 .orElseThrow(() -> new AccessDeniedException("Target card not found or access denied"));
 
         return performTransfer(fromCard, toCard, amount);
@@ -43,60 +134,178 @@ public class TransferService {
         validateTransfer(fromCard, toCard, amount);
 
         fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
-
         cardRepository.save(fromCard);
-        cardRepository.save(toCard);
 
+        if (hotCardLedger.isHot(toCard.getId())) {
+            hotCardLedger.deferCredit(toCard, amount);
+        } else {
+            toCard.setBalance(toCard.getBalance().add(amount));
+            cardRepository.save(toCard);
+        }
+
+        return transferRepository.save(createTransfer(fromCard, toCard, amount));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TransferBatchResult> transferBatchBetweenUserCards(List<TransferRequest> requests, Long userId) {
+        return optimisticLockRetry.execute("transfer_batch", () -> transactionOperations.execute(
+                status -> performBatchTransfer(requests, userId)));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<TransferBatchResult> transferBatch(List<TransferRequest> requests) {
+        return optimisticLockRetry.execute("transfer_batch", () -> transactionOperations.execute(
+                status -> performBatchTransfer(requests, null)));
+    }
+
+    private List<TransferBatchResult> performBatchTransfer(List<TransferRequest> requests, Long ownerId) {
+        // Горячие карты, на которые в пакете только зачисляют, не блокируются: зачисления на них откладываются
+        Set<Long> cardIds = new HashSet<>();
+        Set<Long> hotTargetIds = new HashSet<>();
+        for (TransferRequest request : requests) {
+            cardIds.add(request.getFromCardId());
+            if (hotCardLedger.isHot(request.getToCardId())) {
+                hotTargetIds.add(request.getToCardId());
+            } else {
+                cardIds.add(request.getToCardId());
+            }
+        }
+        hotTargetIds.removeAll(cardIds);
+
+        // Все карты пакета читаются одним запросом и блокируются по возрастанию id, как и при одиночном переводе.
+        // При оптимистичной блокировке читаются без блокировок, и конфликт по любой карте повторяет весь пакет
+        List<Card> loaded = new ArrayList<>(locking == TransferLocking.OPTIMISTIC
+                ? cardRepository.findAllById(cardIds)
+                : cardRepository.findAllByIdInForUpdate(cardIds));
+        if (!hotTargetIds.isEmpty()) {
+            loaded.addAll(cardRepository.findAllById(hotTargetIds));
+        }
+        Map<Long, Card> cards = loaded.stream()
+                .filter(card -> ownerId == null || card.getOwner().getId().equals(ownerId))
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        List<TransferBatchResult> results = new ArrayList<>(requests.size());
+        List<Transfer> transfers = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                Card fromCard = Optional.ofNullable(cards.get(request.getFromCardId()))
+                        .orElseThrow(() -> new AccessDeniedException("Source card not found or access denied"));
+                Card toCard = Optional.ofNullable(cards.get(request.getToCardId()))
+                        .orElseThrow(() -> new AccessDeniedException("Target card not found or access denied"));
+
+                validateTransfer(fromCard, toCard, request.getAmount());
+
+                fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
+                if (hotCardLedger.isHot(toCard.getId())) {
+                    hotCardLedger.deferCredit(toCard, request.getAmount());
+                } else {
+                    toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+                }
+
+                Transfer transfer = createTransfer(fromCard, toCard, request.getAmount());
+                transfers.add(transfer);
+                results.add(TransferBatchResult.success(i, transfer));
+            } catch (AccessDeniedException | BusinessLogicException | ValidationException e) {
+                results.add(TransferBatchResult.failure(i, e.getMessage()));
+            }
+        }
+
+        // Изменения балансов сбрасываются dirty checking'ом, вставки переводов уходят JDBC-пакетами
+        transferRepository.saveAll(transfers);
+
+        return results;
+    }
+
+    private Transfer createTransfer(Card fromCard, Card toCard, BigDecimal amount) {
         Transfer transfer = new Transfer();
         transfer.setFromCard(fromCard);
         transfer.setToCard(toCard);
         transfer.setAmount(amount);
         transfer.setTransferDate(LocalDateTime.now());
-
-        return transferRepository.save(transfer);
+        return transfer;
     }
 
     private void validateTransfer(Card fromCard, Card toCard, BigDecimal amount) {
         if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BusinessLogicException("Source card is not active");
+            throw rejected("source_card_inactive", new BusinessLogicException("Source card is not active"));
         }
 
         if (toCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BusinessLogicException("Target card is not active");
+            throw rejected("target_card_inactive", new BusinessLogicException("Target card is not active"));
+        }
+
+        // Срок действия проверяется по дате, а не по статусу: сборщик просроченных карт мог еще не дойти до карты
+        LocalDate today = LocalDate.now();
+        if (fromCard.getExpiry().isBefore(today)) {
+            throw rejected("source_card_expired", new BusinessLogicException("Source card is expired"));
+        }
+
+        if (toCard.getExpiry().isBefore(today)) {
+            throw rejected("target_card_expired", new BusinessLogicException("Target card is expired"));
         }
 
         if (fromCard.getBalance().compareTo(amount) < 0) {
-            throw new BusinessLogicException("Insufficient funds on source card");
+            throw rejected("insufficient_funds", new BusinessLogicException("Insufficient funds on source card"));
         }
 
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new ValidationException("Transfer amount must be positive");
+            throw rejected("invalid_amount", new ValidationException("Transfer amount must be positive"));
         }
 
         if (amount.compareTo(new BigDecimal("1000000")) > 0) {
-            throw new ValidationException("Transfer amount exceeds maximum limit");
+            throw rejected("amount_limit_exceeded", new ValidationException("Transfer amount exceeds maximum limit"));
         }
 
         if (fromCard.getId().equals(toCard.getId())) {
-            throw new ValidationException("Cannot transfer to the same card");
+            throw rejected("same_card", new ValidationException("Cannot transfer to the same card"));
+        }
+    }
+
+    // Отказы считаются по причинам, чтобы всплеск, например, нехватки средств был виден отдельно
+    private RuntimeException rejected(String reason, RuntimeException exception) {
+        meterRegistry.counter(TRANSFER_REJECTED_COUNTER, "reason", reason).increment();
+        return exception;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<TransferView> getUserTransfers(Long userId, Pageable pageable) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+
+        List<Long> cardIds = cardRepository.findIdsByOwnerId(userId);
+        if (cardIds.isEmpty()) {
+            return Page.empty(pageable);
         }
+
+        return transferRepository.findByCardIds(cardIds, pageable);
     }
 
     @Transactional(readOnly = true)
-    public Page<Transfer> getUserTransfers(Long userId, Pageable pageable) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    public Slice<TransferView> getUserTransfers(Long userId, KeysetCursor cursor, int size) {
+        Pageable limit = KeysetCursor.limit(size);
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+
+        List<Long> cardIds = cardRepository.findIdsByOwnerId(userId);
+        if (cardIds.isEmpty()) {
+            return new SliceImpl<>(List.of(), limit, false);
+        }
 
-        return transferRepository.findByUser(user, pageable);
+        return cursor == null
+                ? transferRepository.findFirstSliceByCardIds(cardIds, limit)
+                : transferRepository.findSliceByCardIdsBefore(cardIds, cursor.timestamp(), cursor.id(), limit);
     }
 
     @Transactional(readOnly = true)
     public Transfer getTransferById(Long transferId, Long userId) {
-        Transfer transfer = transferRepository.findById(transferId)
+        Transfer transfer = transferRepository.findWithCardsById(transferId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transfer not found"));
 
-        if (!isUserInvolvedInTransfer(transfer, userId) && !isAdmin(userId)) {
+        if (!isUserInvolvedInTransfer(transfer, userId) && !userAuthorityCache.isAdmin(userId)) {
             throw new AccessDeniedException("Access denied to view this transfer");
         }
 
@@ -104,8 +313,16 @@ public class TransferService {
     }
 
     @Transactional(readOnly = true)
-    public Page<Transfer> getAllTransfers(Pageable pageable) {
-        return transferRepository.findAll(pageable);
+    public Page<TransferView> getAllTransfers(Pageable pageable) {
+        return transferRepository.findAllViews(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<TransferView> getAllTransfers(KeysetCursor cursor, int size) {
+        Pageable limit = KeysetCursor.limit(size);
+        return cursor == null
+                ? transferRepository.findFirstSlice(limit)
+                : transferRepository.findSliceBefore(cursor.timestamp(), cursor.id(), limit);
     }
 
 
@@ -114,12 +331,4 @@ public class TransferService {
         Long toUserId = transfer.getToCard().getOwner().getId();
         return fromUserId.equals(userId) || toUserId.equals(userId);
     }
-
-    private boolean isAdmin(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        return user.getRoles().stream()
-                .anyMatch(role -> role.getName().name().equals("ADMIN"));
-    }
 }
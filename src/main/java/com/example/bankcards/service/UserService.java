@@ -9,6 +9,7 @@ import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserAuthorityCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,7 +19,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -31,6 +31,8 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final UserAuthorityCache userAuthorityCache;
+
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
@@ -75,7 +77,9 @@ public class UserService {
             user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userAuthorityCache.evict(userId);
+        return saved;
     }
 
     public void deleteUser(Long userId) {
@@ -86,6 +90,7 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        userAuthorityCache.evict(userId);
     }
 
     @Transactional(readOnly = true)
@@ -102,10 +107,6 @@ public class UserService {
     }
 
     public boolean isAdmin(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        return user.getRoles().stream()
-                .anyMatch(role -> Objects.equals(role.getName(), RoleName.ADMIN));
+        return userAuthorityCache.isAdmin(userId);
     }
 }
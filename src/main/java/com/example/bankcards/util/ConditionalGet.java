@@ -0,0 +1,25 @@
+package com.example.bankcards.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+// Условный GET по ETag: если у клиента текущая версия, тело не строится и отдается 304 Not Modified
+public final class ConditionalGet {
+
+    // Ответы персональные: общие кэши их не хранят, клиент перепроверяет версию при каждом обращении
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    public static <T> ResponseEntity<T> ok(WebRequest request, String version, Supplier<T> body) {
+        if (request.checkNotModified(version)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE_CONTROL).build();
+        }
+        return ResponseEntity.ok().cacheControl(CACHE_CONTROL).body(body.get());
+    }
+}
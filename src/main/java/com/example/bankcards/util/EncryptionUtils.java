@@ -1,51 +1,174 @@
 package com.example.bankcards.util;
 
 import com.example.bankcards.exception.BusinessLogicException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 @Service
 public class EncryptionUtils {
 
-    @Value("${encryption.secret-key}")
-    private String secretKey;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
 
-    private SecretKey getAesKey() throws Exception {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return new SecretKeySpec(keyBytes, "AES");
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final int TAG_LENGTH = TAG_LENGTH_BITS / 8;
+
+    private static final String BLIND_INDEX_ALGORITHM = "HmacSHA256";
+
+    public static final int BLIND_INDEX_LENGTH = 32;
+
+    public static final String TIMER_NAME = "bank.encryption";
+
+    private final SecretKey aesKey;
+
+    private final SecretKey blindIndexKey;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // Пул вместо ThreadLocal: Cipher не потокобезопасен, а на виртуальных потоках ThreadLocal плодил бы экземпляры
+    private final BlockingQueue<Cipher> cipherPool;
+
+    private final BlockingQueue<Mac> macPool;
+
+    private final Timer encryptTimer;
+
+    private final Timer decryptTimer;
+
+    // Без реестра метрик: для миграций и тестов, где таймеры не нужны
+    public EncryptionUtils(String secretKey, String blindIndexKey, int cipherPoolSize) {
+        this(secretKey, blindIndexKey, cipherPoolSize, new CompositeMeterRegistry());
+    }
+
+    @Autowired
+    public EncryptionUtils(@Value("${encryption.secret-key}") String secretKey,
+                           @Value("${encryption.blind-index-key}") String blindIndexKey,
+                           @Value("${encryption.cipher-pool-size:64}") int cipherPoolSize,
+                           MeterRegistry meterRegistry) {
+        this.aesKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "AES");
+        this.blindIndexKey = new SecretKeySpec(blindIndexKey.getBytes(StandardCharsets.UTF_8), BLIND_INDEX_ALGORITHM);
+        this.cipherPool = new ArrayBlockingQueue<>(cipherPoolSize);
+        this.macPool = new ArrayBlockingQueue<>(cipherPoolSize);
+        this.encryptTimer = Timer.builder(TIMER_NAME)
+                .tag("operation", "encrypt")
+                .register(meterRegistry);
+        this.decryptTimer = Timer.builder(TIMER_NAME)
+                .tag("operation", "decrypt")
+                .register(meterRegistry);
     }
 
     public String encrypt(String data) {
+        byte[] encryptedBytes = encrypt(data.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(encryptedBytes);
+    }
+
+    public String decrypt(String encryptedData) {
+        byte[] decodedBytes;
         try {
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            cipher.init(Cipher.ENCRYPT_MODE, getAesKey());
+            decodedBytes = Base64.getDecoder().decode(encryptedData);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessLogicException("Decryption failed", e);
+        }
+        return new String(decrypt(decodedBytes), StandardCharsets.UTF_8);
+    }
+
+    // Формат результата: IV (12 байт) || шифртекст || GCM-тег (16 байт)
+    public byte[] encrypt(byte[] data) {
+        return encryptTimer.record(() -> encryptBytes(data));
+    }
+
+    public byte[] decrypt(byte[] encryptedData) {
+        return decryptTimer.record(() -> decryptBytes(encryptedData));
+    }
 
-            byte[] encryptedBytes = cipher.doFinal(data.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
+    private byte[] encryptBytes(byte[] data) {
+        byte[] result = new byte[IV_LENGTH + data.length + TAG_LENGTH];
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        System.arraycopy(iv, 0, result, 0, IV_LENGTH);
 
-        } catch (Exception e) {
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(TAG_LENGTH_BITS, result, 0, IV_LENGTH));
+            cipher.doFinal(data, 0, data.length, result, IV_LENGTH);
+            return result;
+        } catch (GeneralSecurityException e) {
             throw new BusinessLogicException("Encryption failed", e);
+        } finally {
+            releaseCipher(cipher);
         }
     }
 
-    public String decrypt(String encryptedData) {
+    private byte[] decryptBytes(byte[] encryptedData) {
+        if (encryptedData.length < IV_LENGTH + TAG_LENGTH) {
+            throw new BusinessLogicException("Decryption failed");
+        }
+
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(TAG_LENGTH_BITS, encryptedData, 0, IV_LENGTH));
+            return cipher.doFinal(encryptedData, IV_LENGTH, encryptedData.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new BusinessLogicException("Decryption failed", e);
+        } finally {
+            releaseCipher(cipher);
+        }
+    }
+
+    // Детерминированный HMAC номера карты для поиска и проверки уникальности без сравнения шифртекстов
+    public byte[] blindIndex(String cardNumber) {
+        Mac mac = borrowMac();
         try {
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            cipher.init(Cipher.DECRYPT_MODE, getAesKey());
+            return mac.doFinal(cardNumber.strip().getBytes(StandardCharsets.UTF_8));
+        } finally {
+            macPool.offer(mac);
+        }
+    }
 
-            byte[] decodedBytes = Base64.getDecoder().decode(encryptedData);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
+    private Cipher borrowCipher() {
+        Cipher cipher = cipherPool.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new BusinessLogicException("Encryption is not available", e);
+        }
+    }
 
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
+    private void releaseCipher(Cipher cipher) {
+        cipherPool.offer(cipher);
+    }
 
-        } catch (Exception e) {
-            throw new BusinessLogicException("Decryption failed", e);
+    private Mac borrowMac() {
+        Mac mac = macPool.poll();
+        if (mac != null) {
+            return mac;
+        }
+        try {
+            mac = Mac.getInstance(BLIND_INDEX_ALGORITHM);
+            mac.init(blindIndexKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new BusinessLogicException("Blind index is not available", e);
         }
     }
 }
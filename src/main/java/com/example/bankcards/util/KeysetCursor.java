@@ -0,0 +1,50 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.ValidationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Позиция последней отданной строки для seek-пагинации: (время, id) в порядке убывания
+public record KeysetCursor(LocalDateTime timestamp, Long id) {
+
+    public static final int MAX_SIZE = 100;
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Ограничение порции для seek-запроса; сортировка задается в самом запросе
+    public static Pageable limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_SIZE);
+        }
+        return PageRequest.ofSize(size);
+    }
+
+    // Отсутствующий курсор означает первую порцию
+    public static KeysetCursor decodeNullable(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : decode(cursor);
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
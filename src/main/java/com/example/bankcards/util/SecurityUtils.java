@@ -3,6 +3,7 @@ package com.example.bankcards.util;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,6 +17,10 @@ public class SecurityUtils {
 
     public Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserPrincipal userPrincipal && userPrincipal.getId() != null) {
+            return userPrincipal.getId();
+        }
+
         String username = authentication.getName();
 
         User user = userRepository.findByUsername(username)
@@ -0,0 +1,79 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.EncryptionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionUtilsBenchmark {
+
+    private static final String SECRET = "7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W";
+
+    private static final String CARD_NUMBER = "4000123412341234";
+
+    private EncryptionUtils encryptionUtils;
+
+    private byte[] cardNumberBytes;
+
+    private String encrypted;
+
+    private byte[] encryptedBytes;
+
+    @Setup
+    public void setUp() {
+        encryptionUtils = new EncryptionUtils(SECRET, "benchmark-blind-index-key", 64);
+
+        cardNumberBytes = CARD_NUMBER.getBytes(StandardCharsets.UTF_8);
+        encrypted = encryptionUtils.encrypt(CARD_NUMBER);
+        encryptedBytes = Base64.getDecoder().decode(encrypted);
+    }
+
+    // Прежний путь: Cipher и ключ создаются на каждый вызов
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(CARD_NUMBER.getBytes()));
+    }
+
+    @Benchmark
+    public String encryptString() {
+        return encryptionUtils.encrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String decryptString() {
+        return encryptionUtils.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() {
+        return encryptionUtils.encrypt(cardNumberBytes);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() {
+        return encryptionUtils.decrypt(encryptedBytes);
+    }
+
+    @Benchmark
+    public byte[] blindIndex() {
+        return encryptionUtils.blindIndex(CARD_NUMBER);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String decryptStringContended() {
+        return encryptionUtils.decrypt(encrypted);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Card;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Карты пользователя на 10 000 элементов: HashSet (хэш сущности один на класс, все карты в одной корзине)
+// против Map по id, в которой теперь хранится User.cards
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityHashCodeBenchmark {
+
+    @Param({"10000"})
+    private int cardCount;
+
+    private List<Card> cards;
+
+    private Set<Card> cardSet;
+
+    private Map<Long, Card> cardMap;
+
+    private Card lastCard;
+
+    @Setup
+    public void setUp() {
+        cards = new ArrayList<>(cardCount);
+        for (long i = 1; i <= cardCount; i++) {
+            Card card = new Card();
+            card.setId(i);
+            cards.add(card);
+        }
+        cardSet = new HashSet<>(cards);
+        cardMap = byId(cards);
+        lastCard = cards.getLast();
+    }
+
+    // Загрузка коллекции User.cards: каждая вставка проверяет дубликаты в своей корзине
+    @Benchmark
+    public Set<Card> addAllToSet() {
+        return new HashSet<>(cards);
+    }
+
+    @Benchmark
+    public Map<Long, Card> addAllToMap() {
+        return byId(cards);
+    }
+
+    @Benchmark
+    public boolean containsInSet() {
+        return cardSet.contains(lastCard);
+    }
+
+    @Benchmark
+    public boolean containsInMap() {
+        return cardMap.containsKey(lastCard.getId());
+    }
+
+    private static Map<Long, Card> byId(List<Card> cards) {
+        Map<Long, Card> map = new HashMap<>();
+        cards.forEach(card -> map.put(card.getId(), card));
+        return map;
+    }
+}
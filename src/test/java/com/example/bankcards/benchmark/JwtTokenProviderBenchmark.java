@@ -0,0 +1,89 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserPrincipal;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "aZyHAW5ir1CCYn+SuZF4S63acRqtcg7JXwV97pC0q7E=";
+
+    private JwtTokenProvider uncachedProvider;
+
+    private JwtTokenProvider cachedProvider;
+
+    private String token;
+
+    private UsernamePasswordAuthenticationToken authentication;
+
+    @Setup
+    public void setUp() {
+        uncachedProvider = provider(0);
+        cachedProvider = provider(10_000);
+
+        UserPrincipal principal = new UserPrincipal(1L, "benchmark", null, List.of(new SimpleGrantedAuthority("USER")));
+        authentication = new UsernamePasswordAuthenticationToken(principal, null);
+        token = cachedProvider.generateToken(authentication);
+    }
+
+    // Выпуск токена при логине: сборка claims и подпись HMAC
+    @Benchmark
+    public String generateToken() {
+        return uncachedProvider.generateToken(authentication);
+    }
+
+    // Прежний путь фильтра: ключ и парсер собираются заново, подпись проверяется дважды
+    @Benchmark
+    public String legacyValidateThenGetUsername() {
+        Jwts.parserBuilder().setSigningKey(legacySigningKey()).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(legacySigningKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public UserPrincipal singleParseWithPrebuiltParser() {
+        return uncachedProvider.getUserPrincipalFromClaims(uncachedProvider.getValidatedClaims(token));
+    }
+
+    @Benchmark
+    public UserPrincipal verifiedTokenCacheHit() {
+        return cachedProvider.getUserPrincipalFromClaims(cachedProvider.getValidatedClaims(token));
+    }
+
+    private static JwtTokenProvider provider(long cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(provider, "verifiedTokenCacheSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+
+    private static SecretKey legacySigningKey() {
+        byte[] keyBytes = SECRET.getBytes();
+        if (keyBytes.length < 64) {
+            byte[] paddedKey = new byte[64];
+            System.arraycopy(keyBytes, 0, paddedKey, 0, keyBytes.length);
+            for (int i = keyBytes.length; i < 64; i++) {
+                paddedKey[i] = keyBytes[i % keyBytes.length];
+            }
+            keyBytes = paddedKey;
+        }
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+}
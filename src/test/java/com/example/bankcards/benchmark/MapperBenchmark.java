@@ -0,0 +1,101 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.response.CardDTOResponse;
+import com.example.bankcards.dto.response.TransferDTOResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.mapper.TransferMapper;
+import com.example.bankcards.repository.projection.TransferView;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private CardMapper cardMapper;
+
+    private TransferMapper transferMapper;
+
+    private Card card;
+
+    private Transfer transfer;
+
+    private TransferView transferView;
+
+    private Page<Card> cardPage;
+
+    @Setup
+    public void setUp() {
+        cardMapper = Mappers.getMapper(CardMapper.class);
+        transferMapper = Mappers.getMapper(TransferMapper.class);
+
+        User owner = new User();
+        owner.setId(1L);
+        owner.setUsername("benchmark");
+
+        List<Card> cards = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            cards.add(card(owner, i));
+        }
+        card = cards.getFirst();
+        cardPage = new PageImpl<>(cards, PageRequest.of(0, PAGE_SIZE), 1_000);
+
+        transfer = new Transfer();
+        transfer.setId(1L);
+        transfer.setFromCard(cards.get(0));
+        transfer.setToCard(cards.get(1));
+        transfer.setAmount(new BigDecimal("150.00"));
+        transfer.setTransferDate(LocalDateTime.now());
+
+        transferView = new TransferView(1L, cards.get(0).getMaskedNumber(), cards.get(1).getMaskedNumber(),
+                new BigDecimal("150.00"), LocalDateTime.now(), 1L, 2L);
+    }
+
+    @Benchmark
+    public CardDTOResponse cardToDTO() {
+        return cardMapper.cardToCardDTOResponse(card);
+    }
+
+    // Так контроллеры отдают страницу карт
+    @Benchmark
+    public Page<CardDTOResponse> cardPageToDTO() {
+        return cardPage.map(cardMapper::cardToCardDTOResponse);
+    }
+
+    @Benchmark
+    public TransferDTOResponse transferToDTO() {
+        return transferMapper.transferToTransferDTOResponse(transfer);
+    }
+
+    @Benchmark
+    public TransferDTOResponse transferViewToDTO() {
+        return transferMapper.transferViewToTransferDTOResponse(transferView);
+    }
+
+    private static Card card(User owner, int index) {
+        Card card = TestCards.active(owner, String.valueOf(1000 + index), new BigDecimal("1000.00"));
+        card.setId((long) index + 1);
+        card.setCreatedAt(LocalDateTime.now());
+        card.setUpdatedAt(LocalDateTime.now());
+        return card;
+    }
+}
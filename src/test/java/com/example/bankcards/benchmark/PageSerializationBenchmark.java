@@ -0,0 +1,61 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.response.CardDTOResponse;
+import com.example.bankcards.enums.CardStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private Page<CardDTOResponse> page;
+
+    @Setup
+    public void setUp() {
+        // Те же модули и настройки, что Spring Boot регистрирует для контроллеров
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<CardDTOResponse> cards = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            CardDTOResponse card = new CardDTOResponse();
+            card.setId((long) i + 1);
+            card.setMaskedNumber("**** **** **** " + (1000 + i));
+            card.setCardHolder("BENCHMARK USER");
+            card.setExpirationDate(LocalDate.now().plusYears(3));
+            card.setBalance(new BigDecimal("1000.00"));
+            card.setStatus(CardStatus.ACTIVE);
+            card.setUserId(1L);
+            card.setCreatedAt(LocalDateTime.now());
+            card.setUpdatedAt(LocalDateTime.now());
+            cards.add(card);
+        }
+        page = new PageImpl<>(cards, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializeCardPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
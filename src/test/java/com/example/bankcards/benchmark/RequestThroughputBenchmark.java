@@ -0,0 +1,103 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankcardsApplication;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочный прогон через HTTP: приложение поднимается целиком на H2 и обслуживает 256 параллельных клиентов
+// в каждом режиме потоков. Throughput дает запросы в секунду, SampleTime - перцентили задержки
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class RequestThroughputBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private HttpRequest summaryRequest;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankcardsApplication.class)
+                .profiles("h2")
+                // Аргументами командной строки, чтобы перекрыть плейсхолдеры переменных окружения из application.yml
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--jwt.secret=aZyHAW5ir1CCYn+SuZF4S63acRqtcg7JXwV97pC0q7E=",
+                        "--jwt.expiration=3600000",
+                        "--encryption.secret-key=7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W",
+                        "--encryption.blind-index-key=blind-index-benchmark-key",
+                        "--prometheus.scrape.password=benchmark",
+                        "--logging.level.root=WARN");
+
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setPasswordHash("hash");
+        user = context.getBean(UserRepository.class).save(user);
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Card card = TestCards.active(user, String.valueOf(1000 + i), new BigDecimal("100.00"));
+            card.setStatus(i % 3 == 0 ? CardStatus.BLOCKED : CardStatus.ACTIVE);
+            cards.add(card);
+        }
+        context.getBean(CardRepository.class).saveAll(cards);
+
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), null,
+                List.of(new SimpleGrantedAuthority("USER")));
+        String token = context.getBean(JwtTokenProvider.class)
+                .generateToken(new UsernamePasswordAuthenticationToken(principal, null));
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        summaryRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/cards/summary"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    // JWT-фильтр, агрегат по картам пользователя в базе и сериализация ответа
+    @Benchmark
+    public int cardSummary() throws Exception {
+        HttpResponse<Void> response = httpClient.send(summaryRequest, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
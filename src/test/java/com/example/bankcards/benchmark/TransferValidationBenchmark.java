@@ -0,0 +1,85 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.TransferLocking;
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.service.TransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferValidationBenchmark {
+
+    // validateTransfer закрыт; static final MethodHandle JIT сворачивает в прямой вызов
+    private static final MethodHandle VALIDATE_TRANSFER = validateTransferHandle();
+
+    private TransferService transferService;
+
+    private Card fromCard;
+
+    private Card toCard;
+
+    private BigDecimal amount;
+
+    private BigDecimal excessiveAmount;
+
+    @Setup
+    public void setUp() {
+        // Репозитории на этом пути не используются, реестр нужен для счетчика отказов
+        transferService = new TransferService(null, null, null, null, new SimpleMeterRegistry(), null, null, null,
+                TransferLocking.PESSIMISTIC);
+
+        fromCard = card(1L, "1000.00");
+        toCard = card(2L, "500.00");
+        amount = new BigDecimal("100.00");
+        excessiveAmount = new BigDecimal("5000.00");
+    }
+
+    @Benchmark
+    public void validTransfer() throws Throwable {
+        VALIDATE_TRANSFER.invokeExact(transferService, fromCard, toCard, amount);
+    }
+
+    // Отказ включает создание исключения со стектрейсом и инкремент счетчика
+    @Benchmark
+    public Object insufficientFunds() throws Throwable {
+        try {
+            VALIDATE_TRANSFER.invokeExact(transferService, fromCard, toCard, excessiveAmount);
+            return null;
+        } catch (BusinessLogicException e) {
+            return e;
+        }
+    }
+
+    private static Card card(Long id, String balance) {
+        Card card = new Card();
+        card.setId(id);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setExpiry(LocalDate.now().plusYears(3));
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+
+    private static MethodHandle validateTransferHandle() {
+        try {
+            return MethodHandles.privateLookupIn(TransferService.class, MethodHandles.lookup())
+                    .findVirtual(TransferService.class, "validateTransfer",
+                            MethodType.methodType(void.class, Card.class, Card.class, BigDecimal.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
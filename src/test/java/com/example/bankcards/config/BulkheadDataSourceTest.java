@@ -0,0 +1,92 @@
+package com.example.bankcards.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для BulkheadDataSource")
+class BulkheadDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    private BulkheadDataSource bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        bulkhead = new BulkheadDataSource(targetDataSource, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("Сверх лимита соединение не выдается, а закрытое соединение возвращает разрешение")
+    void getConnection_ShouldLimitConcurrentConnections() throws Exception {
+        // Given
+        Connection connection = mock(Connection.class);
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        Connection first = bulkhead.getConnection();
+        Connection second = bulkhead.getConnection();
+
+        // When & Then
+        assertThat(bulkhead.availablePermits()).isZero();
+        assertThatThrownBy(bulkhead::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("No database connection permit available within PT0.05S");
+
+        first.close();
+        assertThat(bulkhead.availablePermits()).isEqualTo(1);
+        assertThat(bulkhead.getConnection()).isNotNull();
+        second.close();
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    @DisplayName("Повторное закрытие соединения не возвращает разрешение дважды")
+    void close_ShouldReleasePermitOnce() throws Exception {
+        // Given
+        when(targetDataSource.getConnection()).thenReturn(mock(Connection.class));
+        Connection connection = bulkhead.getConnection();
+
+        // When
+        connection.close();
+        connection.close();
+
+        // Then
+        assertThat(bulkhead.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Разрешение возвращается, если пул не выдал соединение")
+    void getConnection_ShouldReleasePermit_WhenTargetFails() throws Exception {
+        // Given
+        when(targetDataSource.getConnection()).thenThrow(new SQLException("pool timeout"));
+
+        // When & Then
+        assertThatThrownBy(bulkhead::getConnection).hasMessage("pool timeout");
+        assertThat(bulkhead.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Обертка раскрывается до себя, чтобы метрики нашли ограничитель")
+    void unwrap_ShouldExposeBulkhead() throws Exception {
+        // When & Then
+        assertThat(bulkhead.unwrap(BulkheadDataSource.class)).isSameAs(bulkhead);
+        assertThat(bulkhead.isWrapperFor(BulkheadDataSource.class)).isTrue();
+    }
+}
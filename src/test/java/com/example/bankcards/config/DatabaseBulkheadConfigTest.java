@@ -0,0 +1,71 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DatabaseBulkheadConfig.class)
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=4"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Ограничитель соединений в режиме виртуальных потоков")
+class DatabaseBulkheadConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterBinder databaseBulkheadMetrics;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("DataSource обернут семафором размером с пул Hikari, и разрешения возвращаются после запросов")
+    void dataSource_ShouldBeGuardedByBulkheadSizedToPool() throws Exception {
+        // Given
+        BulkheadDataSource bulkhead = dataSource.unwrap(BulkheadDataSource.class);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        databaseBulkheadMetrics.bindTo(registry);
+
+        // When
+        User user = new User();
+        user.setUsername("bulkhead");
+        user.setPasswordHash("hash");
+        userRepository.save(user);
+        boolean found = userRepository.findByUsername("bulkhead").isPresent();
+
+        // Then
+        assertThat(found).isTrue();
+        assertThat(bulkhead.availablePermits()).isEqualTo(4);
+        assertThat(registry.get(DatabaseBulkheadConfig.AVAILABLE_GAUGE).gauge().value()).isEqualTo(4);
+        assertThat(registry.get(DatabaseBulkheadConfig.WAITING_GAUGE).gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.controller.UserManagementController;
+import com.example.bankcards.mapper.UserMapper;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserAuthorityCache;
+import com.example.bankcards.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// В срезе @WebMvcTest нет эндпоинтов actuator: запрос, пропущенный цепочкой, доходит до обработчика ошибок,
+// поэтому проверяется только, что он не отклонен безопасностью
+@WebMvcTest(controllers = UserManagementController.class)
+@Import({PrometheusSecurityConfig.class, TestSecurityConfig.class})
+@TestPropertySource(properties = {
+        "prometheus.scrape.username=scraper",
+        "prometheus.scrape.password=scrape-secret"
+})
+@DisplayName("Доступ к скрейпу Prometheus")
+class PrometheusSecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private UserMapper userMapper;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserAuthorityCache userAuthorityCache;
+
+    @Test
+    @DisplayName("Без учетных данных сборщика скрейп отклоняется с 401")
+    void scrape_ShouldReturnUnauthorized_WhenNoCredentials() throws Exception {
+        // When & Then
+        mockMvc.perform(get(PrometheusSecurityConfig.SCRAPE_PATH))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().exists(HttpHeaders.WWW_AUTHENTICATE));
+    }
+
+    @Test
+    @DisplayName("С неверным паролем скрейп отклоняется с 401")
+    void scrape_ShouldReturnUnauthorized_WhenPasswordWrong() throws Exception {
+        // When & Then
+        mockMvc.perform(get(PrometheusSecurityConfig.SCRAPE_PATH).with(httpBasic("scraper", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("С учетными данными сборщика запрос проходит цепочку безопасности")
+    void scrape_ShouldPassSecurity_WhenScraperCredentials() throws Exception {
+        // When & Then
+        mockMvc.perform(get(PrometheusSecurityConfig.SCRAPE_PATH).with(httpBasic("scraper", "scrape-secret")))
+                .andExpect(result -> assertThat(result.getResponse().getStatus()).isNotIn(401, 403));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.bankcards.config.liquibase;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.EncryptionUtils;
+import liquibase.change.custom.CustomChangeWrapper;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Тесты миграции CardNumberHashBackfill")
+class CardNumberHashBackfillTest {
+
+    private static final String SECRET_KEY = "7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W";
+    private static final String BLIND_INDEX_KEY = "blind-index-test-key";
+    private static final String CHANGELOG = "db/migration/v3/v3.2026-10-17-card-number-hash.yaml";
+
+    private final EncryptionUtils encryptionUtils = new EncryptionUtils(SECRET_KEY, BLIND_INDEX_KEY, 4);
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Должен заполнить number_hash для всех карт в нескольких порциях и пропустить нерасшифровываемые")
+    void execute_ShouldBackfillAllCards_AcrossChunks() throws Exception {
+        // Given
+        User owner = new User();
+        owner.setUsername("legacy");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+
+        List<String> cardNumbers = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            String cardNumber = String.format("4000%012d", i);
+            cardNumbers.add(cardNumber);
+            cardRepository.save(card(owner, encryptionUtils.encrypt(cardNumber)));
+        }
+        Card legacyCard = cardRepository.save(card(owner, "bGVnYWN5LWNpcGhlcnRleHQ="));
+
+        CardNumberHashBackfill backfill = new CardNumberHashBackfill();
+        backfill.setSecretKey(SECRET_KEY);
+        backfill.setBlindIndexKey(BLIND_INDEX_KEY);
+
+        // When
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            backfill.execute(database);
+        }
+
+        // Then
+        assertThat(backfill.getConfirmationMessage())
+                .isEqualTo("Backfilled number_hash for 1200 cards, skipped 1 undecryptable cards");
+        assertThat(cardRepository.findById(legacyCard.getId()).orElseThrow().getNumberHash()).isNull();
+        for (String cardNumber : List.of(cardNumbers.get(0), cardNumbers.get(599), cardNumbers.get(1199))) {
+            assertThat(cardRepository.findByNumberHash(encryptionUtils.blindIndex(cardNumber))).isPresent();
+        }
+    }
+
+    @Test
+    @DisplayName("Changeset из changelog получает ключи из параметров Liquibase и заполняет number_hash")
+    void changeSet_ShouldReceiveKeysFromChangelogParameters() throws Exception {
+        // Given
+        User owner = new User();
+        owner.setUsername("changelog");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+        cardRepository.save(card(owner, encryptionUtils.encrypt("4000000000000001")));
+
+        // When
+        String confirmation;
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            // Параметры передаются так же, как spring.liquibase.parameters при старте приложения
+            ChangeLogParameters parameters = new ChangeLogParameters(database);
+            parameters.set("encryptionSecretKey", SECRET_KEY);
+            parameters.set("blindIndexKey", BLIND_INDEX_KEY);
+            ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
+            DatabaseChangeLog changeLog = ChangeLogParserFactory.getInstance()
+                    .getParser(CHANGELOG, resourceAccessor)
+                    .parse(CHANGELOG, parameters, resourceAccessor);
+            ChangeSet backfill = changeLog.getChangeSets().stream()
+                    .filter(changeSet -> changeSet.getId().equals("backfill-cards-number_hash"))
+                    .findFirst()
+                    .orElseThrow();
+            CustomChangeWrapper change = (CustomChangeWrapper) backfill.getChanges().getFirst();
+            change.generateStatements(database);
+            confirmation = change.getConfirmationMessage();
+        }
+
+        // Then
+        assertThat(confirmation).isEqualTo("Backfilled number_hash for 1 cards, skipped 0 undecryptable cards");
+        assertThat(cardRepository.findByNumberHash(encryptionUtils.blindIndex("4000000000000001"))).isPresent();
+    }
+
+    private Card card(User owner, String encryptedNumber) {
+        Card card = TestCards.active(owner, BigDecimal.ZERO);
+        card.setNumber(encryptedNumber);
+        return card;
+    }
+}
@@ -8,11 +8,14 @@ import com.example.bankcards.enums.RoleName;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserAuthorityCache;
+import com.example.bankcards.security.UserPrincipal;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -20,11 +23,13 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -52,6 +57,9 @@ class AuthControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UserAuthorityCache userAuthorityCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -142,10 +150,7 @@ class AuthControllerTest {
         // Given
         when(userService.findByUsername("newuser")).thenReturn(Optional.empty());
         when(userService.createUser("newuser", "password123", RoleName.USER)).thenReturn(testUser);
-        
-        Authentication authentication = mock(Authentication.class);
-        when(authenticationManager.authenticate(any())).thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn("jwt-token");
+        when(tokenProvider.generateToken(any(Authentication.class))).thenReturn("jwt-token");
 
         AuthRequest registerRequest = new AuthRequest();
         registerRequest.setUsername("newuser");
@@ -159,8 +164,14 @@ class AuthControllerTest {
 
         verify(userService).findByUsername("newuser");
         verify(userService).createUser("newuser", "password123", RoleName.USER);
-        verify(authenticationManager).authenticate(any());
-        verify(tokenProvider).generateToken(authentication);
+        // Пароль хэшируется один раз при создании пользователя, повторной проверки пароля нет
+        verify(authenticationManager, never()).authenticate(any());
+        ArgumentCaptor<Authentication> authentication = ArgumentCaptor.forClass(Authentication.class);
+        verify(tokenProvider).generateToken(authentication.capture());
+        assertThat(authentication.getValue().getPrincipal())
+                .isInstanceOfSatisfying(UserPrincipal.class, principal -> assertThat(principal.getId()).isEqualTo(1L));
+        assertThat(authentication.getValue().getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("USER");
     }
 
     @Test
@@ -7,10 +7,16 @@ import com.example.bankcards.dto.response.CardDTOResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.DataFormat;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardSetVersion;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserAuthorityCache;
+import com.example.bankcards.service.CardImportJob;
+import com.example.bankcards.service.CardImportService;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.util.SecurityUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,18 +27,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -47,6 +60,9 @@ class CardControllerTest {
     @MockBean
     private CardService cardService;
 
+    @MockBean
+    private CardImportService cardImportService;
+
     @MockBean
     private SecurityUtils securityUtils;
 
@@ -62,6 +78,9 @@ class CardControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UserAuthorityCache userAuthorityCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -135,6 +154,36 @@ class CardControllerTest {
         verify(cardMapper).cardToCardDTOResponse(testCard);
     }
 
+    @Test
+    @DisplayName("Должен принять файл для загрузки карт и вернуть задачу со ссылкой на прогресс")
+    void importCards_ShouldReturnAcceptedJob() throws Exception {
+        // Given
+        CardImportJob job = new CardImportJob("job-1", 100);
+        when(cardImportService.startImport(any(InputStream.class), eq(DataFormat.NDJSON))).thenReturn(job);
+
+        // When & Then
+        mockMvc.perform(post("/api/cards/import")
+                .with(csrf())
+                .param("format", "NDJSON")
+                .contentType("application/x-ndjson")
+                .content("{}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/cards/import/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    @DisplayName("Должен вернуть 404 для неизвестной задачи загрузки")
+    void getImportJob_ShouldReturnNotFound_WhenJobUnknown() throws Exception {
+        // Given
+        when(cardImportService.getJob("missing")).thenThrow(new ResourceNotFoundException("Import job not found: missing"));
+
+        // When & Then
+        mockMvc.perform(get("/api/cards/import/missing"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Должен вернуть ошибку валидации при невалидном номере карты")
     void createCard_ShouldReturnValidationError_WhenInvalidCardNumber() throws Exception {
@@ -169,6 +218,27 @@ class CardControllerTest {
         verify(cardMapper).cardToCardDTOResponse(testCard);
     }
 
+    @Test
+    @DisplayName("Должен вернуть страницу своих карт с ETag, а при совпадении версии - 304 без загрузки карт")
+    void getMyCards_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getUserCardsVersion(1L)).thenReturn(new CardSetVersion(1L, 1L, null));
+        when(cardService.getUserCards(eq(1L), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(testCard)));
+        when(cardMapper.cardToCardDTOResponse(testCard)).thenReturn(testCardDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/cards/my"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-1-0\""))
+                .andExpect(jsonPath("$.content[0].id").value(1L));
+
+        mockMvc.perform(get("/api/cards/my").header(HttpHeaders.IF_NONE_MATCH, "\"1-1-0\""))
+                .andExpect(status().isNotModified());
+
+        verify(cardService, times(1)).getUserCards(eq(1L), any(Pageable.class));
+    }
+
     @Test
     @DisplayName("Должен успешно заблокировать карту")
     void blockCard_ShouldBlockCard_WhenValidId() throws Exception {
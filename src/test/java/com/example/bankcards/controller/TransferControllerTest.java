@@ -8,8 +8,10 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
 import com.example.bankcards.mapper.TransferMapper;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.TransferView;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserAuthorityCache;
 import com.example.bankcards.service.TransferService;
 import com.example.bankcards.util.SecurityUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -61,10 +63,14 @@ class TransferControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UserAuthorityCache userAuthorityCache;
+
     private User testUser;
     private Card fromCard;
     private Card toCard;
     private Transfer testTransfer;
+    private TransferView testTransferView;
     private TransferDTOResponse testTransferDTO;
 
     @BeforeEach
@@ -98,6 +104,9 @@ class TransferControllerTest {
         testTransfer.setAmount(BigDecimal.valueOf(100.00));
         testTransfer.setTransferDate(LocalDateTime.now());
 
+        testTransferView = new TransferView(1L, "****-****-****-1234", "****-****-****-5678",
+                BigDecimal.valueOf(100.00), testTransfer.getTransferDate(), 1L, 1L);
+
         testTransferDTO = new TransferDTOResponse();
         testTransferDTO.setId(1L);
         testTransferDTO.setFromCardMaskedNumber("****-****-****-1234");
@@ -166,11 +175,11 @@ class TransferControllerTest {
     @DisplayName("Должен успешно получить все переводы (админ)")
     void getAllTransfers_ShouldReturnAllTransfers_WhenAdmin() throws Exception {
         // Given
-        List<Transfer> transfers = List.of(testTransfer);
-        Page<Transfer> transferPage = new PageImpl<>(transfers, PageRequest.of(0, 20), 1);
+        List<TransferView> transfers = List.of(testTransferView);
+        Page<TransferView> transferPage = new PageImpl<>(transfers, PageRequest.of(0, 20), 1);
 
         when(transferService.getAllTransfers(any(Pageable.class))).thenReturn(transferPage);
-        when(transferMapper.transferToTransferDTOResponse(testTransfer)).thenReturn(testTransferDTO);
+        when(transferMapper.transferViewToTransferDTOResponse(testTransferView)).thenReturn(testTransferDTO);
 
         // When & Then
         mockMvc.perform(get("/api/transfers/admin/all")
@@ -183,18 +192,18 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.size").value(20));
 
         verify(transferService).getAllTransfers(any(Pageable.class));
-        verify(transferMapper).transferToTransferDTOResponse(testTransfer);
+        verify(transferMapper).transferViewToTransferDTOResponse(testTransferView);
     }
 
     @Test
     @DisplayName("Должен успешно получить все переводы с пагинацией")
     void getAllTransfers_ShouldReturnPaginatedTransfers_WhenValidPagination() throws Exception {
         // Given
-        List<Transfer> transfers = List.of(testTransfer);
-        Page<Transfer> transferPage = new PageImpl<>(transfers, PageRequest.of(0, 10), 1);
+        List<TransferView> transfers = List.of(testTransferView);
+        Page<TransferView> transferPage = new PageImpl<>(transfers, PageRequest.of(0, 10), 1);
 
         when(transferService.getAllTransfers(any(Pageable.class))).thenReturn(transferPage);
-        when(transferMapper.transferToTransferDTOResponse(testTransfer)).thenReturn(testTransferDTO);
+        when(transferMapper.transferViewToTransferDTOResponse(testTransferView)).thenReturn(testTransferDTO);
 
         // When & Then
         mockMvc.perform(get("/api/transfers/admin/all")
@@ -206,14 +215,14 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.size").value(10));
 
         verify(transferService).getAllTransfers(any(Pageable.class));
-        verify(transferMapper).transferToTransferDTOResponse(testTransfer);
+        verify(transferMapper).transferViewToTransferDTOResponse(testTransferView);
     }
 
     @Test
     @DisplayName("Должен вернуть пустую страницу при отсутствии переводов")
     void getAllTransfers_ShouldReturnEmptyPage_WhenNoTransfers() throws Exception {
         // Given
-        Page<Transfer> emptyPage = new PageImpl<>(List.of(), PageRequest.of(0, 20), 0);
+        Page<TransferView> emptyPage = new PageImpl<>(List.of(), PageRequest.of(0, 20), 0);
 
         when(transferService.getAllTransfers(any(Pageable.class))).thenReturn(emptyPage);
 
@@ -224,7 +233,7 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.totalElements").value(0));
 
         verify(transferService).getAllTransfers(any(Pageable.class));
-        verify(transferMapper, never()).transferToTransferDTOResponse(any());
+        verify(transferMapper, never()).transferViewToTransferDTOResponse(any());
     }
 
     @Test
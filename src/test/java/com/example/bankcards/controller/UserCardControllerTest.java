@@ -1,20 +1,33 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.config.TestSecurityConfig;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.BatchTransferItemDTOResponse;
 import com.example.bankcards.dto.response.CardDTOResponse;
+import com.example.bankcards.dto.response.CardSummaryDTOResponse;
 import com.example.bankcards.dto.response.TransferDTOResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.DataFormat;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.TransferMapper;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardSetVersion;
+import com.example.bankcards.repository.projection.CardVersion;
+import com.example.bankcards.repository.projection.TransferView;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserAuthorityCache;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardSummary;
+import com.example.bankcards.service.TransferBatchResult;
+import com.example.bankcards.service.TransferExportService;
+import com.example.bankcards.service.TransferIdempotencyService;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.KeysetCursor;
 import com.example.bankcards.util.SecurityUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,22 +37,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserCardController.class)
@@ -56,6 +82,12 @@ class UserCardControllerTest {
     @MockBean
     private TransferService transferService;
 
+    @MockBean
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @MockBean
+    private TransferExportService transferExportService;
+
     @MockBean
     private SecurityUtils securityUtils;
 
@@ -74,6 +106,9 @@ class UserCardControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UserAuthorityCache userAuthorityCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -81,6 +116,7 @@ class UserCardControllerTest {
     private Card testCard;
     private CardDTOResponse testCardDTO;
     private Transfer testTransfer;
+    private TransferView testTransferView;
     private TransferDTOResponse testTransferDTO;
     private TransferRequest transferRequest;
 
@@ -118,6 +154,9 @@ class UserCardControllerTest {
         testTransfer.setAmount(BigDecimal.valueOf(100.00));
         testTransfer.setTransferDate(LocalDateTime.now());
 
+        testTransferView = new TransferView(1L, "****-****-****-1234", "****-****-****-5678",
+                BigDecimal.valueOf(100.00), testTransfer.getTransferDate(), 1L, 1L);
+
         testTransferDTO = new TransferDTOResponse();
         testTransferDTO.setId(1L);
         testTransferDTO.setFromCardMaskedNumber("****-****-****-1234");
@@ -133,6 +172,9 @@ class UserCardControllerTest {
         transferRequest.setToCardId(2L);
         transferRequest.setAmount(BigDecimal.valueOf(100.00));
         transferRequest.setDescription("Test transfer");
+
+        when(cardService.getCardVersion(1L, 1L)).thenReturn(new CardVersion(1L, 1L, 7L));
+        when(cardService.getUserCardsVersion(1L)).thenReturn(new CardSetVersion(2L, 3L, 9L));
     }
 
     @Test
@@ -164,6 +206,33 @@ class UserCardControllerTest {
         verify(cardMapper).cardToCardDTOResponse(blockedCard);
     }
 
+    @Test
+    @DisplayName("Должен вернуть сводку по картам текущего пользователя")
+    void getCardSummary_ShouldReturnSummary() throws Exception {
+        // Given
+        CardSummary summary = new CardSummary(new BigDecimal("1500.00"), 3, 2, 1, 0);
+        CardSummaryDTOResponse summaryDTO = new CardSummaryDTOResponse();
+        summaryDTO.setTotalBalance(new BigDecimal("1500.00"));
+        summaryDTO.setTotalCards(3);
+        summaryDTO.setActiveCards(2);
+        summaryDTO.setBlockedCards(1);
+
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getUserCardSummary(1L)).thenReturn(summary);
+        when(cardMapper.cardSummaryToDTOResponse(summary)).thenReturn(summaryDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalBalance").value(1500.00))
+                .andExpect(jsonPath("$.totalCards").value(3))
+                .andExpect(jsonPath("$.activeCards").value(2))
+                .andExpect(jsonPath("$.blockedCards").value(1))
+                .andExpect(jsonPath("$.expiredCards").value(0));
+
+        verify(cardService).getUserCardSummary(1L);
+    }
+
     @Test
     @DisplayName("Должен успешно выполнить перевод между своими картами")
     void transferBetweenMyCards_ShouldTransfer_WhenValidRequest() throws Exception {
@@ -187,6 +256,28 @@ class UserCardControllerTest {
         verify(transferMapper).transferToTransferDTOResponse(testTransfer);
     }
 
+    @Test
+    @DisplayName("Должен выполнить перевод через дедупликацию при наличии Idempotency-Key")
+    void transferBetweenMyCards_ShouldUseIdempotencyService_WhenKeyProvided() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(transferIdempotencyService.execute(eq(1L), eq("retry-key-1"), any(TransferRequest.class), any()))
+                .thenReturn(testTransferDTO);
+
+        // When & Then
+        mockMvc.perform(post("/api/user/cards/transfer")
+                .with(csrf())
+                .header("Idempotency-Key", "retry-key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.amount").value(100.00));
+
+        verify(transferIdempotencyService).execute(eq(1L), eq("retry-key-1"), any(TransferRequest.class), any());
+        verify(transferService, never()).transferBetweenUserCards(anyLong(), anyLong(), any(), anyLong());
+    }
+
     @Test
     @DisplayName("Должен вернуть ошибку валидации при невалидном запросе перевода")
     void transferBetweenMyCards_ShouldReturnValidationError_WhenInvalidRequest() throws Exception {
@@ -203,6 +294,61 @@ class UserCardControllerTest {
         verify(transferService, never()).transferBetweenUserCards(anyLong(), anyLong(), any(), anyLong());
     }
 
+    @Test
+    @DisplayName("Должен выполнить пакет переводов и вернуть результаты по элементам")
+    void transferBatchBetweenMyCards_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        BatchTransferRequest batchRequest = new BatchTransferRequest();
+        batchRequest.setTransfers(List.of(transferRequest, transferRequest));
+
+        List<TransferBatchResult> results = List.of(
+                TransferBatchResult.success(0, testTransfer),
+                TransferBatchResult.failure(1, "Insufficient funds on source card"));
+
+        BatchTransferItemDTOResponse success = new BatchTransferItemDTOResponse();
+        success.setIndex(0);
+        success.setSuccess(true);
+        success.setTransfer(testTransferDTO);
+        BatchTransferItemDTOResponse failure = new BatchTransferItemDTOResponse();
+        failure.setIndex(1);
+        failure.setError("Insufficient funds on source card");
+
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(transferService.transferBatchBetweenUserCards(anyList(), eq(1L))).thenReturn(results);
+        when(transferMapper.transferBatchResultToDTOResponse(results.get(0))).thenReturn(success);
+        when(transferMapper.transferBatchResultToDTOResponse(results.get(1))).thenReturn(failure);
+
+        // When & Then
+        mockMvc.perform(post("/api/user/cards/transfers/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].transfer.id").value(1L))
+                .andExpect(jsonPath("$.results[1].error").value("Insufficient funds on source card"));
+
+        verify(transferService).transferBatchBetweenUserCards(anyList(), eq(1L));
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ошибку валидации при пустом пакете переводов")
+    void transferBatchBetweenMyCards_ShouldReturnValidationError_WhenBatchEmpty() throws Exception {
+        // Given
+        BatchTransferRequest batchRequest = new BatchTransferRequest();
+        batchRequest.setTransfers(List.of());
+
+        // When & Then
+        mockMvc.perform(post("/api/user/cards/transfers/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest());
+
+        verify(transferService, never()).transferBatchBetweenUserCards(anyList(), anyLong());
+    }
+
     @Test
     @DisplayName("Должен успешно получить баланс конкретной карты")
     void getCardBalance_ShouldReturnBalance_WhenValidCardId() throws Exception {
@@ -219,6 +365,110 @@ class UserCardControllerTest {
         verify(cardService).getCardBalance(1L, 1L);
     }
 
+    @Test
+    @DisplayName("Баланс карты отдается с ETag версии карты и запретом хранения в общих кэшах")
+    void getCardBalance_ShouldReturnETag() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getCardBalance(1L, 1L)).thenReturn(BigDecimal.TEN);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/1/balance"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"1-7\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    @DisplayName("Должен вернуть 304 без чтения баланса, если версия карты у клиента актуальна")
+    void getCardBalance_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/1/balance")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-7\""))
+                .andExpect(content().string(""));
+
+        verify(cardService, never()).getCardBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Должен вернуть порцию истории переводов и курсор следующей порции")
+    void getUserTransfersByCursor_ShouldReturnSliceWithNextCursor() throws Exception {
+        // Given
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2026, 10, 1, 12, 0), 50L);
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(transferService.getUserTransfers(1L, cursor, 1))
+                .thenReturn(new SliceImpl<>(List.of(testTransferView), PageRequest.ofSize(1), true));
+        when(transferMapper.transferViewToTransferDTOResponse(testTransferView)).thenReturn(testTransferDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/transfers/cursor")
+                        .param("cursor", cursor.encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value(
+                        new KeysetCursor(testTransfer.getTransferDate(), testTransfer.getId()).encode()));
+
+        verify(transferService).getUserTransfers(1L, cursor, 1);
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ошибку валидации для поврежденного курсора")
+    void getUserTransfersByCursor_ShouldReturnBadRequest_WhenCursorInvalid() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/transfers/cursor").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verify(transferService, never()).getUserTransfers(anyLong(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Должен отдать историю переводов потоковым CSV-вложением")
+    void exportUserTransfers_ShouldStreamCsvAttachment() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(transferExportService.exportUserTransfers(eq(1L), isNull(), isNull(), eq(DataFormat.CSV), any()))
+                .thenAnswer(invocation -> {
+                    OutputStream outputStream = invocation.getArgument(4);
+                    outputStream.write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/user/cards/transfers/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transfers.csv\""))
+                .andExpect(content().string("id\n1\n"));
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ошибку валидации до начала выгрузки, если указана только одна граница периода")
+    void exportUserTransfers_ShouldReturnBadRequest_WhenPeriodIncomplete() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/transfers/export").param("startDate", "2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transferExportService);
+    }
+
     @Test
     @DisplayName("Должен успешно получить общий баланс всех карт пользователя")
     void getTotalBalance_ShouldReturnTotalBalance_WhenUserExists() throws Exception {
@@ -257,6 +507,36 @@ class UserCardControllerTest {
         verify(cardMapper).cardToCardDTOResponse(testCard);
     }
 
+    @Test
+    @DisplayName("Должен вернуть 304 без загрузки карт, если версия набора карт у клиента актуальна")
+    void getActiveCards_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/active")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-3-9\""))
+                .andExpect(status().isNotModified());
+
+        verify(cardService, never()).getUserActiveCards(anyLong());
+        verifyNoInteractions(cardMapper);
+    }
+
+    @Test
+    @DisplayName("Общий баланс пересчитывается, если версия набора карт изменилась")
+    void getTotalBalance_ShouldReturnBalance_WhenETagStale() throws Exception {
+        // Given
+        when(securityUtils.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getUserTotalBalance(1L)).thenReturn(BigDecimal.TEN);
+
+        // When & Then
+        mockMvc.perform(get("/api/user/cards/total-balance")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2-3-8\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-3-9\""))
+                .andExpect(jsonPath("$").value(10));
+    }
+
     @Test
     @DisplayName("Должен успешно получить заблокированные карты пользователя")
     void getBlockedCards_ShouldReturnBlockedCards_WhenUserExists() throws Exception {
@@ -11,6 +11,7 @@ import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.security.UserAuthorityCache;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -66,6 +67,9 @@ class UserManagementControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UserAuthorityCache userAuthorityCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
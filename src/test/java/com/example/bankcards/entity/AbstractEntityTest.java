@@ -0,0 +1,149 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("equals и hashCode сущностей")
+class AbstractEntityTest {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("owner");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Новая сущность остается в HashSet после сохранения и равна загруженной копии")
+    void hashCode_ShouldNotChange_WhenEntityPersisted() {
+        // Given
+        Card card = card();
+        Set<Card> cards = new HashSet<>();
+        cards.add(card);
+        int hashBeforeSave = card.hashCode();
+
+        // When
+        cardRepository.save(card);
+        Card loaded = cardRepository.findById(card.getId()).orElseThrow();
+
+        // Then
+        assertThat(card.hashCode()).isEqualTo(hashBeforeSave);
+        assertThat(cards).contains(card);
+        assertThat(loaded).isNotSameAs(card).isEqualTo(card).hasSameHashCodeAs(card);
+        assertThat(cards).contains(loaded);
+    }
+
+    @Test
+    @DisplayName("Прокси равен сущности и имеет тот же хэш без загрузки из базы")
+    void hashCode_ShouldMatchEntity_WhenProxy() {
+        // Given
+        Card card = cardRepository.save(card());
+
+        // When & Then
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Card reference = cardRepository.getReferenceById(card.getId());
+            assertThat(reference).isInstanceOf(HibernateProxy.class);
+            assertThat(reference).isEqualTo(card).hasSameHashCodeAs(card);
+            assertThat(Hibernate.isInitialized(reference)).isFalse();
+        });
+    }
+
+    @Test
+    @DisplayName("Карты пользователя загружаются в Map по id")
+    void cards_ShouldBeKeyedById_WhenUserLoaded() {
+        // Given
+        List<Card> cards = cardRepository.saveAll(IntStream.range(0, 3).mapToObj(i -> card()).toList());
+
+        // When & Then
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User loaded = userRepository.findById(owner.getId()).orElseThrow();
+            assertThat(loaded.getCards()).hasSize(3);
+            cards.forEach(card -> assertThat(loaded.getCards().get(card.getId())).isEqualTo(card));
+        });
+    }
+
+    @Test
+    @DisplayName("Идентификаторы выдаются из памяти: одно обращение к последовательности на 50 вставок")
+    void id_ShouldBeAllocatedInBlocks_WhenManyEntitiesInserted() {
+        // Given
+        List<User> users = IntStream.range(0, 10_000)
+                .mapToObj(i -> {
+                    User user = new User();
+                    user.setUsername("user-" + i);
+                    user.setPasswordHash("hash");
+                    return user;
+                })
+                .toList();
+        long sequenceBefore = sequenceValue();
+
+        // When
+        userRepository.saveAll(users);
+
+        // Then
+        // Каждое обращение сдвигает последовательность на incrementBy = 50
+        long sequenceAfter = sequenceValue();
+        long sequenceCalls = (sequenceAfter - sequenceBefore) / 50;
+        assertThat(sequenceCalls).isBetween(200L, 201L);
+        // pooled-lo: блок начинается с полученного значения, последний id лежит в последнем выделенном блоке
+        assertThat(users.getLast().getId()).isBetween(sequenceAfter - 50, sequenceAfter - 1);
+        assertThat(users).extracting(User::getId).doesNotHaveDuplicates();
+        assertThat(userRepository.count()).isEqualTo(10_001);
+    }
+
+    private long sequenceValue() {
+        return jdbcTemplate.queryForObject(
+                "SELECT base_value FROM information_schema.sequences WHERE sequence_name = 'default_seq'", Long.class);
+    }
+
+    private Card card() {
+        return TestCards.active(owner, BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.enums.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Карта для тестов: активная, со сроком действия на три года вперед. Номер - условная строка вместо шифртекста,
+// хэш номера не заполняется. Тест, которому важны другие поля, меняет их у возвращенной карты
+public final class TestCards {
+
+    private TestCards() {
+    }
+
+    public static Card active(User owner, BigDecimal balance) {
+        return active(owner, "0000", balance);
+    }
+
+    public static Card active(User owner, String lastFour, BigDecimal balance) {
+        Card card = new Card();
+        card.setNumber("cipher-" + lastFour);
+        card.setMaskedNumber("**** **** **** " + lastFour);
+        card.setCardHolder(owner.getUsername());
+        card.setExpiry(LocalDate.now().plusYears(3));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalance(balance);
+        card.setOwner(owner);
+        return card;
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.repository.projection.TransferView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Планы запросов репозиториев на PostgreSQL")
+class RepositoryIndexUsageTest {
+
+    // Справочник ролей из двух строк всегда дешевле читать целиком
+    private static final Set<String> INDEXED_TABLES =
+            Set.of("users", "user_roles", "cards", "transfers", "transfer_idempotency_keys",
+                    "pending_card_credits");
+
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    private static final List<RecordedStatement> RECORDED = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean recording;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransferIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private PendingCreditRepository pendingCreditRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("encryption.secret-key", () -> "7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W");
+        registry.add("encryption.blind-index-key", () -> "blind-index-test-key");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        POSTGRES.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (Connection connection = POSTGRES.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE pending_card_credits, transfers, cards, user_roles, users, "
+                    + "transfer_idempotency_keys");
+            statement.execute("""
+                    INSERT INTO users (id, created_at, updated_at, username, password_hash)
+                    SELECT i, now(), now(), 'user' || i, 'hash' FROM generate_series(1, 20000) i""");
+            statement.execute("INSERT INTO user_roles (user_id, role_id) SELECT id, 1 FROM users");
+            statement.execute("""
+                    INSERT INTO cards (id, created_at, updated_at, number, number_hash, masked_number,
+                                       card_holder, expiry, status, balance, owner_id)
+                    SELECT i, now() - i * interval '1 minute', now(), 'cipher' || i, sha256(i::text::bytea),
+                           '**** **** **** 0000', 'Holder', current_date + 365,
+                           CASE WHEN i % 5 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END, 1000, (i % 20000) + 1
+                    FROM generate_series(1, 100000) i""");
+            statement.execute("""
+                    INSERT INTO transfers (id, created_at, updated_at, from_card_id, to_card_id, amount, transfer_date)
+                    SELECT i, now(), now(), (i * 7) % 100000 + 1, (i * 13) % 100000 + 1, (i % 10000) + 0.5,
+                           now() - (i % 525600) * interval '1 minute'
+                    FROM generate_series(1, 200000) i""");
+            statement.execute("""
+                    INSERT INTO transfer_idempotency_keys (id, created_at, updated_at, user_id, idempotency_key,
+                                                           request_fingerprint, response)
+                    SELECT i, now(), now(), (i % 20000) + 1, 'key-' || i, 'fp', '{}'
+                    FROM generate_series(1, 20000) i""");
+            statement.execute("""
+                    INSERT INTO pending_card_credits (id, created_at, updated_at, card_id, amount)
+                    SELECT i, now(), now(), (i % 10) + 1, 1.5
+                    FROM generate_series(1, 50000) i""");
+            statement.execute("ANALYZE");
+        }
+        RECORDED.clear();
+    }
+
+    @Test
+    @DisplayName("Ни один запрос репозиториев не читает большие таблицы последовательным сканированием")
+    void repositoryQueries_ShouldNotUseSequentialScans() throws Exception {
+        // Given
+        User user = userRepository.findById(42L).orElseThrow();
+        List<Long> cardIds = cardRepository.findIdsByOwnerId(42L);
+        PageRequest byTransferDate = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "transferDate"));
+        RECORDED.clear();
+
+        // When
+        recording = true;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                cardRepository.findByOwner(user, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+                cardRepository.findByOwner(user);
+                cardRepository.findByOwnerAndStatus(user, CardStatus.ACTIVE);
+                cardRepository.findByOwnerId(42L, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+                cardRepository.findByOwnerIdAndStatus(42L, CardStatus.BLOCKED);
+                cardRepository.findByIdAndOwnerId(cardIds.getFirst(), 42L);
+                cardRepository.findVersionById(cardIds.getFirst());
+                cardRepository.findVersionByOwnerId(42L);
+                cardRepository.findByIdAndOwnerIdForUpdate(cardIds.getFirst(), 42L);
+                cardRepository.findAllByIdInForUpdate(cardIds);
+                cardRepository.findIdsByOwnerId(42L);
+                cardRepository.existsByNumberHash(new byte[32]);
+                cardRepository.findByNumberHash(new byte[32]);
+                cardRepository.findExistingNumberHashes(List.of(new byte[32], new byte[32]));
+                cardRepository.sumBalanceByOwnerId(42L);
+                cardRepository.summarizeByOwnerId(42L);
+                cardRepository.expireActiveCardsBefore(LocalDate.now(), LocalDateTime.now(), 500);
+                cardRepository.addToBalance(cardIds.getFirst(), BigDecimal.TEN, LocalDateTime.now());
+
+                transferRepository.findByCardIds(cardIds, byTransferDate);
+                transferRepository.findByCard(cardIds.getFirst(), byTransferDate);
+                transferRepository.findWithCardsById(1234L);
+                transferRepository.findByCardIdsAndPeriod(cardIds,
+                        LocalDateTime.now().minusDays(30), LocalDateTime.now());
+                transferRepository.findFirstSliceByCardIds(cardIds, PageRequest.ofSize(20));
+                transferRepository.findSliceByCardIdsBefore(cardIds, LocalDateTime.now().minusDays(30), 500L,
+                        PageRequest.ofSize(20));
+                transferRepository.findFirstSlice(PageRequest.ofSize(20));
+                transferRepository.findSliceBefore(LocalDateTime.now().minusDays(300), 50_000L, PageRequest.ofSize(20));
+                try (Stream<TransferView> stream = transferRepository.streamByCardIds(cardIds)) {
+                    stream.limit(20).forEach(view -> { });
+                }
+                try (Stream<TransferView> stream = transferRepository.streamByCardIdsAndPeriod(cardIds,
+                        LocalDateTime.now().minusDays(30), LocalDateTime.now())) {
+                    stream.limit(20).forEach(view -> { });
+                }
+                cardRepository.findFirstSlice(PageRequest.ofSize(20));
+                cardRepository.findSliceBefore(LocalDateTime.now().minusDays(5), 7_000L, PageRequest.ofSize(20));
+                transferRepository.findByAmountGreaterThan(new BigDecimal("9990"),
+                        PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "amount")));
+
+                userRepository.findByUsername("user42");
+                userRepository.existsByUsername("user42");
+                userRepository.findWithRolesByUsername("user42");
+                userRepository.findWithRolesById(42L);
+                userRepository.hasUserCardsWithBalance(42L);
+                userRepository.findExistingIds(List.of(42L, 43L, 99_999L));
+                userRepository.updatePasswordHash(42L, "{bcrypt}hash", LocalDateTime.now());
+
+                idempotencyKeyRepository.findByUserIdAndIdempotencyKey(42L, "key-42");
+                pendingCreditRepository.findOldest(PageRequest.ofSize(1000));
+                status.setRollbackOnly();
+            });
+        } finally {
+            recording = false;
+        }
+
+        // Then
+        assertThat(RECORDED).hasSizeGreaterThan(25);
+        List<String> sequentialScans = new ArrayList<>();
+        try (Connection connection = POSTGRES.getPostgresDatabase().getConnection()) {
+            for (RecordedStatement statement : RECORDED) {
+                for (String table : sequentialScans(connection, statement)) {
+                    sequentialScans.add(table + " <- " + statement.sql());
+                }
+            }
+        }
+        assertThat(sequentialScans).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Проход по курсору возвращает всю историю без пропусков и повторов при одинаковых датах")
+    void seekPagination_ShouldVisitEveryTransferOnce_WhenDatesTie() throws Exception {
+        // Given
+        List<Long> cardIds = cardRepository.findIdsByOwnerId(42L);
+        try (Connection connection = POSTGRES.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE transfers SET transfer_date = date_trunc('month', transfer_date)");
+        }
+        List<Long> expected = transferRepository.findByCardIds(cardIds,
+                        PageRequest.of(0, 10_000, Sort.by(Sort.Direction.DESC, "transferDate", "id")))
+                .map(TransferView::id)
+                .getContent();
+
+        // When
+        List<Long> visited = new ArrayList<>();
+        Slice<TransferView> slice = transferRepository.findFirstSliceByCardIds(cardIds, PageRequest.ofSize(7));
+        visited.addAll(slice.map(TransferView::id).getContent());
+        while (slice.hasNext()) {
+            TransferView last = slice.getContent().getLast();
+            slice = transferRepository.findSliceByCardIdsBefore(cardIds, last.transferDate(), last.id(),
+                    PageRequest.ofSize(7));
+            visited.addAll(slice.map(TransferView::id).getContent());
+        }
+
+        // Then
+        assertThat(expected).hasSizeGreaterThan(7);
+        assertThat(visited).containsExactlyElementsOf(expected);
+    }
+
+    private List<String> sequentialScans(Connection connection, RecordedStatement statement) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql())) {
+            for (Binding binding : statement.bindings()) {
+                binding.method().invoke(explain, binding.args());
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                List<String> tables = new ArrayList<>();
+                collectSequentialScans(objectMapper.readTree(plan.getString(1)).get(0).get("Plan"), tables);
+                return tables;
+            }
+        }
+    }
+
+    private void collectSequentialScans(JsonNode node, List<String> tables) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())
+                && INDEXED_TABLES.contains(node.path("Relation Name").asText())) {
+            tables.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSequentialScans(child, tables);
+        }
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start embedded PostgreSQL", e);
+        }
+    }
+
+    private record Binding(Method method, Object[] args) {
+    }
+
+    private record RecordedStatement(String sql, List<Binding> bindings) {
+    }
+
+    // Оборачивает DataSource и запоминает SELECT- и UPDATE-запросы вместе с параметрами, чтобы повторить их под EXPLAIN
+    @TestConfiguration
+    static class StatementRecordingConfig {
+
+        @Bean
+        static BeanPostProcessor statementRecordingPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return proxy(DataSource.class, dataSource, (result, method, args) ->
+                                method.getName().equals("getConnection")
+                                        ? proxy(Connection.class, (Connection) result, RecordingConnection::handle)
+                                        : null);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static <T> T proxy(Class<T> type, T target, Interceptor interceptor) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        try {
+                            Object result = method.invoke(target, args);
+                            Object replaced = interceptor.intercept(result, method, args);
+                            return replaced != null ? replaced : result;
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }));
+        }
+
+        private interface Interceptor {
+            Object intercept(Object result, Method method, Object[] args) throws Exception;
+        }
+
+        private static final class RecordingConnection {
+
+            static Object handle(Object result, Method method, Object[] args) {
+                if (!method.getName().equals("prepareStatement") || !recording
+                        || !isExplainable(args[0].toString())) {
+                    return null;
+                }
+                List<Binding> bindings = new ArrayList<>();
+                RECORDED.add(new RecordedStatement(args[0].toString(), bindings));
+                return proxy(PreparedStatement.class, (PreparedStatement) result, (ignored, statementMethod, statementArgs) -> {
+                    if (statementMethod.getName().startsWith("set") && statementArgs != null
+                            && statementArgs.length >= 2 && statementArgs[0] instanceof Integer) {
+                        bindings.add(new Binding(statementMethod, statementArgs));
+                    }
+                    return null;
+                });
+            }
+
+            // Кроме выборок проверяются и массовые UPDATE: EXPLAIN без ANALYZE их не выполняет
+            private static boolean isExplainable(String sql) {
+                String statement = sql.trim().toLowerCase();
+                return statement.startsWith("select") || statement.startsWith("update");
+            }
+        }
+    }
+}
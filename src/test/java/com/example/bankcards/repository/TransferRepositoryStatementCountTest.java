@@ -0,0 +1,148 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.projection.TransferView;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Количество запросов при чтении истории переводов")
+class TransferRepositoryStatementCountTest {
+
+    private static final int USERS = 5;
+    private static final int CARDS_PER_USER = 3;
+    private static final int TRANSFERS = 120;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private List<Long> ownerCardIds;
+
+    @BeforeEach
+    void setUp() {
+        List<Card> cards = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = new User();
+            user.setUsername("user" + u);
+            user.setPasswordHash("hash");
+            user = userRepository.save(user);
+            for (int c = 0; c < CARDS_PER_USER; c++) {
+                cards.add(TestCards.active(user, u + "00" + c, new BigDecimal("1000.00")));
+            }
+        }
+        cards = cardRepository.saveAll(cards);
+        ownerCardIds = cards.subList(0, CARDS_PER_USER).stream().map(Card::getId).toList();
+
+        // Каждый перевод идет с карты первого пользователя на карту другого, так что владельцы в строках различаются
+        List<Transfer> transfers = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusDays(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            Transfer transfer = new Transfer();
+            transfer.setFromCard(cards.get(i % CARDS_PER_USER));
+            transfer.setToCard(cards.get(CARDS_PER_USER + i % (cards.size() - CARDS_PER_USER)));
+            transfer.setAmount(BigDecimal.valueOf(i + 1));
+            transfer.setTransferDate(start.plusDays(i));
+            transfers.add(transfer);
+        }
+        transferRepository.saveAll(transfers);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Страница истории переводов пользователя читается двумя запросами независимо от размера")
+    void findByCardIds_ShouldExecuteConstantStatements_RegardlessOfPageSize() {
+        for (int size : new int[]{5, 20, 50}) {
+            // Given
+            PageRequest pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "transferDate"));
+            statistics.clear();
+
+            // When
+            Page<TransferView> page = transferRepository.findByCardIds(ownerCardIds, pageable);
+
+            // Then
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getTotalElements()).isEqualTo(TRANSFERS);
+            assertThat(page.getContent())
+                    .allSatisfy(view -> {
+                        assertThat(view.fromUserId()).isNotNull().isNotEqualTo(view.toUserId());
+                        assertThat(view.fromCardMaskedNumber()).startsWith("****");
+                        assertThat(view.toCardMaskedNumber()).startsWith("****");
+                    });
+            // Выборка страницы и COUNT, без догрузки карт и владельцев по строкам
+            assertThat(statistics.getPrepareStatementCount()).as("statements for page size %d", size).isEqualTo(2);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Порции по курсору и страницы администратора читаются фиксированным числом запросов")
+    void seekAndAdminQueries_ShouldExecuteConstantStatements() {
+        for (int size : new int[]{5, 20, 50}) {
+            // Given
+            statistics.clear();
+
+            // When
+            Slice<TransferView> first = transferRepository.findFirstSliceByCardIds(ownerCardIds, PageRequest.ofSize(size));
+            TransferView last = first.getContent().getLast();
+            Slice<TransferView> next = transferRepository.findSliceByCardIdsBefore(ownerCardIds,
+                    last.transferDate(), last.id(), PageRequest.ofSize(size));
+            Slice<TransferView> all = transferRepository.findFirstSlice(PageRequest.ofSize(size));
+            Page<TransferView> adminPage = transferRepository.findAllViews(PageRequest.of(0, size));
+
+            // Then
+            assertThat(first.getContent()).hasSize(size);
+            assertThat(next.getContent()).hasSize(size);
+            assertThat(all.getContent()).hasSize(size);
+            assertThat(adminPage.getContent()).hasSize(size);
+            assertThat(statistics.getPrepareStatementCount()).as("statements for page size %d", size).isEqualTo(5);
+            assertThat(statistics.getEntityLoadCount()).isZero();
+        }
+    }
+}
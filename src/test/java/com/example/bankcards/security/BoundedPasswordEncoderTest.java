@@ -0,0 +1,116 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Тесты для BoundedPasswordEncoder")
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordEncoder.close();
+    }
+
+    @Test
+    @DisplayName("Хэширование выполняется в пуле, а не в потоке запроса")
+    void encode_ShouldRunOnHashingPool() {
+        // Given
+        passwordEncoder = new BoundedPasswordEncoder(new ThreadNameEncoder(), 1, 1, new SimpleMeterRegistry());
+
+        // When
+        String hash = passwordEncoder.encode("password123");
+
+        // Then
+        assertThat(hash).startsWith("password-hashing-");
+        assertThat(passwordEncoder.matches("password123", hash)).isTrue();
+    }
+
+    @Test
+    @DisplayName("При занятом пуле и заполненной очереди запрос отклоняется сразу")
+    void matches_ShouldShedLoad_WhenQueueFull() throws Exception {
+        // Given
+        passwordEncoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1, new SimpleMeterRegistry());
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("a", "a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("b", "b"));
+        while (passwordEncoder.queuedTasks() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> passwordEncoder.matches("c", "c"))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .hasMessage("Too many concurrent authentication requests, please retry later");
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Исключение делегата доходит до вызывающего без обертки")
+    void encode_ShouldRethrowDelegateException() {
+        // Given
+        passwordEncoder = new BoundedPasswordEncoder(new ThreadNameEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("rawPassword cannot be null");
+            }
+        }, 1, 1, new SimpleMeterRegistry());
+
+        // When & Then
+        assertThatThrownBy(() -> passwordEncoder.encode(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("rawPassword cannot be null");
+    }
+
+    private static class ThreadNameEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return Thread.currentThread().getName().equals(encodedPassword);
+        }
+    }
+
+    private class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS) && rawPassword.toString().equals(encodedPassword);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
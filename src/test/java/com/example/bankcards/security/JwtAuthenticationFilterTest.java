@@ -0,0 +1,115 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.enums.RoleName;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для JwtAuthenticationFilter")
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "aZyHAW5ir1CCYn+SuZF4S63acRqtcg7JXwV97pC0q7E=aZyHAW5ir1CCYn+SuZF4S63acRqtcg7J";
+
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Mock
+    private UserAuthorityCache userAuthorityCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JwtTokenProvider tokenProvider;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCacheSize", 100L);
+        tokenProvider.init();
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(tokenProvider, customUserDetailsService, userAuthorityCache, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Должен брать роли из кэша пользователей, а не из токена")
+    void doFilter_ShouldUseCachedRoles_WhenRolesChangedAfterTokenIssued() throws Exception {
+        // Given
+        String token = tokenFor(2L, "admin", "ADMIN");
+        when(userAuthorityCache.getRoles(2L)).thenReturn(Set.of(RoleName.USER));
+
+        // When
+        filter.doFilter(requestWith(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isInstanceOf(UserPrincipal.class);
+        assertThat(((UserPrincipal) authentication.getPrincipal()).getId()).isEqualTo(2L);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("USER");
+        verifyNoInteractions(customUserDetailsService);
+        assertThat(meterRegistry.get(JwtAuthenticationFilter.TIMER_NAME).tag("outcome", "authenticated").timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Не должен аутентифицировать запрос по токену удаленного пользователя")
+    void doFilter_ShouldNotAuthenticate_WhenUserDeleted() throws Exception {
+        // Given
+        String token = tokenFor(3L, "deleted", "USER");
+        when(userAuthorityCache.getRoles(3L)).thenThrow(new ResourceNotFoundException("User not found with id: 3"));
+        MockFilterChain filterChain = new MockFilterChain();
+
+        // When
+        filter.doFilter(requestWith(token), new MockHttpServletResponse(), filterChain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(filterChain.getRequest()).isNotNull();
+        assertThat(meterRegistry.get(JwtAuthenticationFilter.TIMER_NAME).tag("outcome", "revoked").timer()
+                .count()).isEqualTo(1);
+    }
+
+    private String tokenFor(Long id, String username, String role) {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
+        UserPrincipal principal = new UserPrincipal(id, username, "hash", authorities);
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+
+    private MockHttpServletRequest requestWith(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты для JwtTokenProvider")
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "aZyHAW5ir1CCYn+SuZF4S63acRqtcg7JXwV97pC0q7E=aZyHAW5ir1CCYn+SuZF4S63acRqtcg7J";
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCacheSize", 100L);
+        tokenProvider.init();
+    }
+
+    @Test
+    @DisplayName("Должен восстановить id и роли пользователя из токена")
+    void getUserPrincipalFromToken_ShouldReturnIdAndAuthorities() {
+        // Given
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ADMIN"), new SimpleGrantedAuthority("USER"));
+        UserPrincipal principal = new UserPrincipal(42L, "admin", "hash", authorities);
+        String token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+
+        // When
+        UserPrincipal result = tokenProvider.getUserPrincipalFromToken(token);
+
+        // Then
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(result.getId()).isEqualTo(42L);
+        assertThat(result.getUsername()).isEqualTo("admin");
+        assertThat(result.getPassword()).isNull();
+        assertThat(result.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ADMIN", "USER");
+    }
+
+    @Test
+    @DisplayName("Должен вернуть null для токена старого формата без id пользователя")
+    void getUserPrincipalFromToken_ShouldReturnNull_WhenTokenHasNoUserId() {
+        // Given
+        String legacyToken = Jwts.builder()
+                .setSubject("legacy")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        // When & Then
+        assertThat(tokenProvider.validateToken(legacyToken)).isTrue();
+        assertThat(tokenProvider.getUserPrincipalFromToken(legacyToken)).isNull();
+        assertThat(tokenProvider.getUsernameFromToken(legacyToken)).isEqualTo("legacy");
+    }
+
+    @Test
+    @DisplayName("Должен вернуть закэшированные claims при повторной проверке того же токена")
+    void getValidatedClaims_ShouldReturnCachedClaims_WhenTokenSeenBefore() {
+        // Given
+        UserPrincipal principal = new UserPrincipal(7L, "user", "hash", List.of(new SimpleGrantedAuthority("USER")));
+        String token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null));
+
+        // When
+        Claims first = tokenProvider.getValidatedClaims(token);
+        Claims second = tokenProvider.getValidatedClaims(token);
+
+        // Then
+        assertThat(first).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(tokenProvider.getValidatedClaims(token + "x")).isNull();
+    }
+
+    @Test
+    @DisplayName("Должен отклонить просроченный токен")
+    void getValidatedClaims_ShouldReturnNull_WhenTokenExpired() {
+        // Given
+        String expiredToken = Jwts.builder()
+                .setSubject("expired")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        // When & Then
+        assertThat(tokenProvider.getValidatedClaims(expiredToken)).isNull();
+    }
+
+    @Test
+    @DisplayName("Должен отклонить токен с неверной подписью")
+    void validateToken_ShouldReturnFalse_WhenSignatureInvalid() {
+        // Given
+        String foreignToken = Jwts.builder()
+                .setSubject("intruder")
+                .signWith(Keys.hmacShaKeyFor(new byte[64]), SignatureAlgorithm.HS512)
+                .compact();
+
+        // When & Then
+        assertThat(tokenProvider.validateToken(foreignToken)).isFalse();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.RoleName;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CustomUserDetailsService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Перехэширование пароля при логине")
+class PasswordRehashTest {
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private PasswordEncoder passwordEncoder;
+
+    private Role role;
+
+    @BeforeEach
+    void setUp() {
+        role = new Role();
+        role.setName(RoleName.USER);
+        role = roleRepository.save(role);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        ((BoundedPasswordEncoder) passwordEncoder).close();
+    }
+
+    @Test
+    @DisplayName("Хэш без префикса и с устаревшей стоимостью перехэшируется один раз")
+    void authenticate_ShouldRehashLegacyBcrypt() {
+        // Given
+        passwordEncoder = passwordEncoder("bcrypt", 5);
+        User user = user(new BCryptPasswordEncoder(4).encode("password123"));
+
+        // When
+        Authentication authentication = provider().authenticate(
+                new UsernamePasswordAuthenticationToken("alice", "password123"));
+        String rehashed = passwordHash(user);
+        provider().authenticate(new UsernamePasswordAuthenticationToken("alice", "password123"));
+
+        // Then
+        assertThat(authentication.isAuthenticated()).isTrue();
+        assertThat(rehashed).startsWith("{bcrypt}$2a$05$");
+        assertThat(passwordHash(user)).isEqualTo(rehashed);
+    }
+
+    @Test
+    @DisplayName("При переходе на Argon2 BCrypt-хэш заменяется Argon2-хэшем при логине")
+    void authenticate_ShouldMigrateToArgon2() {
+        // Given
+        passwordEncoder = passwordEncoder("argon2", 5);
+        User user = user("{bcrypt}" + new BCryptPasswordEncoder(5).encode("password123"));
+
+        // When
+        provider().authenticate(new UsernamePasswordAuthenticationToken("alice", "password123"));
+
+        // Then
+        assertThat(passwordHash(user)).startsWith("{argon2}$argon2id$");
+        assertThat(passwordEncoder.matches("password123", passwordHash(user))).isTrue();
+    }
+
+    private DaoAuthenticationProvider provider() {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        return provider;
+    }
+
+    private PasswordEncoder passwordEncoder(String encoderId, int bcryptStrength) {
+        return new SecurityConfig(null, null)
+                .passwordEncoder(new SimpleMeterRegistry(), encoderId, bcryptStrength, 1, 8);
+    }
+
+    private User user(String passwordHash) {
+        User user = new User();
+        user.setUsername("alice");
+        user.setPasswordHash(passwordHash);
+        user.setRoles(Set.of(role));
+        return userRepository.save(user);
+    }
+
+    private String passwordHash(User user) {
+        return userRepository.findById(user.getId()).orElseThrow().getPasswordHash();
+    }
+}
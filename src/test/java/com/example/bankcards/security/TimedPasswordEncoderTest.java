@@ -0,0 +1,52 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты для TimedPasswordEncoder")
+class TimedPasswordEncoderTest {
+
+    private SimpleMeterRegistry registry;
+
+    private TimedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        passwordEncoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(4), registry);
+    }
+
+    @Test
+    @DisplayName("Должен делегировать хэширование и проверку пароля BCrypt")
+    void encodeAndMatches_ShouldDelegateToBCrypt() {
+        // When
+        String hash = passwordEncoder.encode("password123");
+
+        // Then
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password123", hash)).isTrue();
+        assertThat(passwordEncoder.matches("wrong", hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Должен замерять хэширование и проверку отдельными таймерами")
+    void encodeAndMatches_ShouldRecordTimersByOperation() {
+        // Given
+        String hash = passwordEncoder.encode("password123");
+
+        // When
+        passwordEncoder.matches("password123", hash);
+        passwordEncoder.matches("wrong", hash);
+
+        // Then
+        assertThat(registry.get(TimedPasswordEncoder.TIMER_NAME).tag("operation", "encode").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get(TimedPasswordEncoder.TIMER_NAME).tag("operation", "matches").timer().count())
+                .isEqualTo(2);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.RoleName;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для UserAuthorityCache")
+class UserAuthorityCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserAuthorityCache userAuthorityCache;
+
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        userAuthorityCache = new UserAuthorityCache(userRepository, 100, Duration.ofMinutes(5));
+
+        Role adminRole = new Role();
+        adminRole.setName(RoleName.ADMIN);
+        admin = new User();
+        admin.setId(2L);
+        admin.setUsername("admin");
+        admin.setRoles(Set.of(adminRole));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Должен снять ADMIN с текущего пользователя после смены ролей, хотя в UserPrincipal он еще есть")
+    void isAdmin_ShouldIgnorePrincipalAuthorities_WhenCurrentUserDemoted() {
+        // Given
+        authenticate(2L, "ADMIN");
+        Role userRole = new Role();
+        userRole.setName(RoleName.USER);
+        User demoted = new User();
+        demoted.setId(2L);
+        demoted.setUsername("admin");
+        demoted.setRoles(Set.of(userRole));
+        when(userRepository.findWithRolesById(2L)).thenReturn(Optional.of(admin), Optional.of(demoted));
+        boolean before = userAuthorityCache.isAdmin(2L);
+
+        // When
+        userAuthorityCache.evict(2L);
+        boolean after = userAuthorityCache.isAdmin(2L);
+
+        // Then
+        assertThat(before).isTrue();
+        assertThat(after).isFalse();
+        verify(userRepository, times(2)).findWithRolesById(2L);
+    }
+
+    @Test
+    @DisplayName("Должен загрузить роли другого пользователя один раз и дальше отвечать из кэша")
+    void isAdmin_ShouldLoadRolesOnce_WhenCheckingOtherUser() {
+        // Given
+        authenticate(1L, "USER");
+        when(userRepository.findWithRolesById(2L)).thenReturn(Optional.of(admin));
+
+        // When
+        boolean first = userAuthorityCache.isAdmin(2L);
+        boolean second = userAuthorityCache.isAdmin(2L);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        verify(userRepository, times(1)).findWithRolesById(2L);
+    }
+
+    @Test
+    @DisplayName("Должен перечитать роли после сброса записи")
+    void evict_ShouldReloadRoles() {
+        // Given
+        when(userRepository.findWithRolesById(2L)).thenReturn(Optional.of(admin));
+        userAuthorityCache.getRoles(2L);
+
+        // When
+        userAuthorityCache.evict(2L);
+        Set<RoleName> roles = userAuthorityCache.getRoles(2L);
+
+        // Then
+        assertThat(roles).containsExactly(RoleName.ADMIN);
+        verify(userRepository, times(2)).findWithRolesById(2L);
+    }
+
+    @Test
+    @DisplayName("Внутри транзакции запись сбрасывается только после коммита")
+    void evict_ShouldInvalidateAfterCommit_WhenTransactionActive() {
+        // Given
+        when(userRepository.findWithRolesById(2L)).thenReturn(Optional.of(admin));
+        userAuthorityCache.getRoles(2L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // When
+            userAuthorityCache.evict(2L);
+            userAuthorityCache.getRoles(2L);
+
+            // Then
+            // До коммита читается прежняя запись: перечитанные в этот момент роли были бы старыми
+            verify(userRepository, times(1)).findWithRolesById(2L);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            userAuthorityCache.getRoles(2L);
+
+            // Then
+            verify(userRepository, times(2)).findWithRolesById(2L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение для несуществующего пользователя и не кэшировать результат")
+    void isAdmin_ShouldThrowException_WhenUserNotFound() {
+        // Given
+        when(userRepository.findWithRolesById(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> userAuthorityCache.isAdmin(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("User not found with id: 999");
+        assertThatThrownBy(() -> userAuthorityCache.isAdmin(999L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(userRepository, times(2)).findWithRolesById(999L);
+    }
+
+    @Test
+    @DisplayName("Должен публиковать попадания и промахи кэша в метриках")
+    void bindTo_ShouldExposeHitAndMissCounters() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userAuthorityCache.bindTo(registry);
+        when(userRepository.findWithRolesById(2L)).thenReturn(Optional.of(admin));
+
+        // When
+        userAuthorityCache.isAdmin(2L);
+        userAuthorityCache.isAdmin(2L);
+        userAuthorityCache.isAdmin(2L);
+
+        // Then
+        assertThat(registry.get("cache.gets").tag("cache", UserAuthorityCache.CACHE_NAME).tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("cache", UserAuthorityCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2.0);
+    }
+
+    private void authenticate(Long userId, String role) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId, null,
+                List.of(new SimpleGrantedAuthority(role)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
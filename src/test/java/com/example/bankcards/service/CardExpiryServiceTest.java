@@ -0,0 +1,129 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardExpiryService.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = "card-expiry.batch-size=3")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Сборщик просроченных карт")
+class CardExpiryServiceTest {
+
+    @Autowired
+    private CardExpiryService cardExpiryService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("owner");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Просроченные активные карты переводятся в EXPIRED порциями, остальные не меняются")
+    void expireCards_ShouldExpireActiveCardsInBatches() {
+        // Given
+        List<Card> expired = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expired.add(card(CardStatus.ACTIVE, LocalDate.now().minusDays(i + 1)));
+        }
+        Card blocked = card(CardStatus.BLOCKED, LocalDate.now().minusDays(1));
+        Card lastDay = card(CardStatus.ACTIVE, LocalDate.now());
+        Card valid = card(CardStatus.ACTIVE, LocalDate.now().plusYears(1));
+        statistics.clear();
+
+        // When
+        int total = cardExpiryService.expireCards();
+
+        // Then
+        // Порции по 3: 3 + 3 + 1, неполная порция завершает проход
+        assertThat(total).isEqualTo(7);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(cardRepository.findAllById(expired.stream().map(Card::getId).toList()))
+                .extracting(Card::getStatus)
+                .containsOnly(CardStatus.EXPIRED)
+                .hasSize(7);
+        assertThat(cardRepository.findById(blocked.getId()).orElseThrow().getStatus()).isEqualTo(CardStatus.BLOCKED);
+        assertThat(cardRepository.findById(lastDay.getId()).orElseThrow().getStatus()).isEqualTo(CardStatus.ACTIVE);
+        assertThat(cardRepository.findById(valid.getId()).orElseThrow().getStatus()).isEqualTo(CardStatus.ACTIVE);
+        assertThat(meterRegistry.get(CardExpiryService.EXPIRED_COUNTER).counter().count()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Повторный проход без просроченных карт обходится одним запросом")
+    void expireCards_ShouldDoNothing_WhenNoCardsExpired() {
+        // Given
+        card(CardStatus.ACTIVE, LocalDate.now().plusYears(1));
+        statistics.clear();
+
+        // When
+        int total = cardExpiryService.expireCards();
+
+        // Then
+        assertThat(total).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Card card(CardStatus status, LocalDate expiry) {
+        Card card = TestCards.active(owner, BigDecimal.TEN);
+        card.setExpiry(expiry);
+        card.setStatus(status);
+        return cardRepository.save(card);
+    }
+}
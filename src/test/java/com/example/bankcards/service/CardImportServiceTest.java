@@ -0,0 +1,302 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.CardImportStatus;
+import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.DataFormat;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.EncryptionUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardImportService.class, EncryptionUtils.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@TestPropertySource(properties = {
+        "card-import.chunk-size=100",
+        "card-import.max-reported-errors=3",
+        "encryption.secret-key=7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W",
+        "encryption.blind-index-key=blind-index-test-key"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Массовая загрузка карт")
+class CardImportServiceTest {
+
+    private static final String EXPIRY = LocalDate.now().plusYears(3).toString();
+
+    @Autowired
+    private CardImportService cardImportService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EncryptionUtils encryptionUtils;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("owner");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("CSV загружается порциями с двумя проверочными запросами на порцию и без загрузки сущностей")
+    void startImport_ShouldImportCsvInChunks() throws Exception {
+        // Given
+        StringBuilder csv = new StringBuilder("userId,cardNumber,cardHolder,expirationDate\n");
+        for (int i = 0; i < 250; i++) {
+            csv.append(owner.getId()).append(',').append(4000_0000_0000_0000L + i).append(",\"DOE, JOHN\",")
+                    .append(EXPIRY).append('\n');
+        }
+
+        // When
+        CardImportJob job = runImport(csv.toString(), DataFormat.CSV);
+        long queries = statistics.getQueryExecutionCount();
+        long entityLoads = statistics.getEntityLoadCount();
+
+        // Then
+        // Три порции: владельцы и занятые номера проверяются одним запросом на порцию, владельцы не загружаются
+        assertThat(queries).isEqualTo(3 * 2);
+        assertThat(entityLoads).isZero();
+        assertThat(job.getStatus()).isEqualTo(CardImportStatus.COMPLETED);
+        assertThat(job.getImportedRows()).isEqualTo(250);
+        assertThat(job.getFailedRows()).isZero();
+        assertThat(cardRepository.count()).isEqualTo(250);
+
+        Card card = cardRepository.findByNumberHash(encryptionUtils.blindIndex("4000000000000007")).orElseThrow();
+        assertThat(card.getCardHolder()).isEqualTo("DOE, JOHN");
+        assertThat(card.getMaskedNumber()).isEqualTo("**** **** **** 0007");
+        assertThat(card.getStatus()).isEqualTo(CardStatus.ACTIVE);
+        assertThat(encryptionUtils.decrypt(card.getNumber())).isEqualTo("4000000000000007");
+    }
+
+    @Test
+    @DisplayName("Ошибочные строки попадают в отчет с номерами строк, остальные загружаются")
+    void startImport_ShouldReportRowErrors() throws Exception {
+        // Given
+        Card existing = CardService.newCard(request("4111111111111111"), "cipher",
+                encryptionUtils.blindIndex("4111111111111111"), owner);
+        cardRepository.save(existing);
+
+        String csv = "cardNumber,cardHolder,expirationDate,userId\n"
+                + "4000000000000001,JOHN DOE," + EXPIRY + "," + owner.getId() + "\n"
+                + "12,JOHN DOE," + EXPIRY + "," + owner.getId() + "\n"
+                + "4000000000000002,JOHN DOE," + EXPIRY + ",999999\n"
+                + "4000000000000001,JOHN DOE," + EXPIRY + "," + owner.getId() + "\n"
+                + "4111111111111111,JOHN DOE," + EXPIRY + "," + owner.getId() + "\n"
+                + "4000000000000003,JOHN DOE,not-a-date," + owner.getId() + "\n";
+
+        // When
+        CardImportJob job = runImport(csv, DataFormat.CSV);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(CardImportStatus.COMPLETED);
+        assertThat(job.getProcessedRows()).isEqualTo(6);
+        assertThat(job.getImportedRows()).isEqualTo(1);
+        assertThat(job.getFailedRows()).isEqualTo(5);
+        // В отчете только первые max-reported-errors ошибок, порядок - порядок обнаружения
+        assertThat(job.isErrorsTruncated()).isTrue();
+        assertThat(job.getErrors())
+                .extracting(CardImportJob.RowError::row, CardImportJob.RowError::message)
+                .containsExactly(
+                        tuple(3L, "Invalid card number format"),
+                        tuple(7L, "Invalid value: Text 'not-a-date' could not be parsed at index 0"),
+                        tuple(4L, "User not found with id: 999999"));
+        assertThat(cardRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("NDJSON загружается построчно, испорченная строка не останавливает загрузку")
+    void startImport_ShouldImportNdjson() throws Exception {
+        // Given
+        String ndjson = "{\"cardNumber\":\"4000000000000001\",\"cardHolder\":\"JOHN DOE\",\"expirationDate\":\""
+                + EXPIRY + "\",\"userId\":" + owner.getId() + "}\n"
+                + "{not json\n"
+                + "\n"
+                + "{\"cardNumber\":\"4000000000000002\",\"cardHolder\":\"JANE DOE\",\"expirationDate\":\""
+                + EXPIRY + "\",\"userId\":" + owner.getId() + "}\n";
+
+        // When
+        CardImportJob job = runImport(ndjson, DataFormat.NDJSON);
+
+        // Then
+        assertThat(job.getImportedRows()).isEqualTo(2);
+        assertThat(job.getErrors()).singleElement()
+                .satisfies(error -> {
+                    assertThat(error.row()).isEqualTo(2);
+                    assertThat(error.message()).startsWith("Malformed JSON");
+                });
+        assertThat(cardRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Задача завершается ошибкой, если в заголовке CSV нет нужных колонок")
+    void startImport_ShouldFail_WhenCsvHeaderIncomplete() throws Exception {
+        // When
+        CardImportJob job = runImport("cardNumber,cardHolder\n4000000000000001,JOHN DOE\n", DataFormat.CSV);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(CardImportStatus.FAILED);
+        assertThat(job.getErrors()).extracting(CardImportJob.RowError::message)
+                .containsExactly("CSV header must contain columns " + CardImportService.CSV_COLUMNS);
+        assertThat(cardRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Загрузка отклоняется, когда очередь задач заполнена, а ее временный файл удаляется")
+    void startImport_ShouldRejectAndDeleteFile_WhenQueueFull() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        UserRepository blockingUserRepository = mock(UserRepository.class);
+        when(blockingUserRepository.findExistingIds(any())).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        CardImportService service = new CardImportService(cardRepository, blockingUserRepository, encryptionUtils,
+                new ObjectMapper(), validator, transactionTemplate, 100, 1, 1, 1, 3, Duration.ofHours(1), 10);
+        String csv = "userId,cardNumber,cardHolder,expirationDate\n"
+                + owner.getId() + ",4000000000000001,JOHN DOE," + EXPIRY + "\n";
+        Set<Path> filesBefore = importFiles();
+
+        try {
+            // Одна задача выполняется, вторая ждет в очереди
+            CardImportJob running = service.startImport(stream(csv), DataFormat.CSV);
+            CardImportJob queued = service.startImport(stream(csv), DataFormat.CSV);
+
+            // When & Then
+            assertThatThrownBy(() -> service.startImport(stream(csv), DataFormat.CSV))
+                    .isInstanceOf(ServiceOverloadedException.class)
+                    .hasMessage("Too many card imports in progress, please retry later");
+            // Файлы остались только у выполняемой и ожидающей задач
+            assertThat(importFiles()).hasSize(filesBefore.size() + 2);
+
+            release.countDown();
+            assertThat(running.getCompletion().get(30, TimeUnit.SECONDS).getStatus())
+                    .isEqualTo(CardImportStatus.COMPLETED);
+            assertThat(queued.getCompletion().get(30, TimeUnit.SECONDS).getStatus())
+                    .isEqualTo(CardImportStatus.COMPLETED);
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение для неизвестной задачи")
+    void getJob_ShouldThrowException_WhenJobUnknown() {
+        // When & Then
+        assertThatThrownBy(() -> cardImportService.getJob("missing"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Import job not found: missing");
+    }
+
+    @Test
+    @DisplayName("Значения в кавычках могут содержать запятые и кавычки")
+    void splitCsv_ShouldHonourQuotes() {
+        // When
+        List<String> values = CardImportService.splitCsv("1,\"DOE, \"\"JJ\"\"\",,x");
+
+        // Then
+        assertThat(values).containsExactly("1", "DOE, \"JJ\"", "", "x");
+    }
+
+    private CardImportJob runImport(String body, DataFormat format) throws Exception {
+        CardImportJob job = cardImportService.startImport(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+        assertThat(cardImportService.getJob(job.getId())).isSameAs(job);
+        return job.getCompletion().get(30, TimeUnit.SECONDS);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<Path> importFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("card-import-"))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private static CreateCardRequest request(String cardNumber) {
+        CreateCardRequest request = new CreateCardRequest();
+        request.setCardNumber(cardNumber);
+        request.setCardHolder("JOHN DOE");
+        request.setExpirationDate(LocalDate.now().plusYears(3));
+        return request;
+    }
+}
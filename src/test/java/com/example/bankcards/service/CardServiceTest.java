@@ -9,7 +9,10 @@ import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.BusinessLogicException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.PendingCreditRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardStatusSummary;
+import com.example.bankcards.repository.projection.CardVersion;
 import com.example.bankcards.util.EncryptionUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -30,6 +33,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +52,9 @@ class CardServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PendingCreditRepository pendingCreditRepository;
+
     @InjectMocks
     private CardService cardService;
 
@@ -84,21 +91,43 @@ class CardServiceTest {
         updateRequest.setStatus(CardStatus.BLOCKED);
     }
 
+    @Test
+    @DisplayName("Должен сохранить карту с зашифрованным номером и слепым индексом")
+    void createCard_ShouldSaveCardWithBlindIndex() {
+        // Given
+        byte[] numberHash = {1, 2, 3};
+        when(userService.findById(1L)).thenReturn(Optional.of(testUser));
+        when(encryptionUtils.blindIndex("1234567890123456")).thenReturn(numberHash);
+        when(cardRepository.existsByNumberHash(numberHash)).thenReturn(false);
+        when(encryptionUtils.encrypt("1234567890123456")).thenReturn("encryptedCardNumber");
+        when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Card result = cardService.createCard(createRequest);
+
+        // Then
+        assertThat(result.getNumber()).isEqualTo("encryptedCardNumber");
+        assertThat(result.getNumberHash()).isEqualTo(numberHash);
+        assertThat(result.getMaskedNumber()).isEqualTo("**** **** **** 3456");
+        assertThat(result.getOwner()).isEqualTo(testUser);
+    }
+
     @Test
     @DisplayName("Должен выбросить исключение при создании карты с существующим номером")
     void createCard_ShouldThrowException_WhenCardNumberExists() {
         // Given
         when(userService.findById(1L)).thenReturn(Optional.of(testUser));
-        when(encryptionUtils.encrypt("1234567890123456")).thenReturn("encryptedCardNumber");
-        when(cardRepository.existsByNumber("encryptedCardNumber")).thenReturn(true);
+        byte[] numberHash = {1, 2, 3};
+        when(encryptionUtils.blindIndex("1234567890123456")).thenReturn(numberHash);
+        when(cardRepository.existsByNumberHash(numberHash)).thenReturn(true);
 
         // When & Then
         assertThatThrownBy(() -> cardService.createCard(createRequest))
                 .isInstanceOf(BusinessLogicException.class)
                 .hasMessage("Card with this number already exists");
         verify(userService).findById(1L);
-        verify(encryptionUtils).encrypt("1234567890123456");
-        verify(cardRepository).existsByNumber("encryptedCardNumber");
+        verify(cardRepository).existsByNumberHash(numberHash);
+        verify(encryptionUtils, never()).encrypt(anyString());
         verify(cardRepository, never()).save(any());
     }
 
@@ -147,14 +176,28 @@ class CardServiceTest {
         verify(cardRepository).findById(999L);
     }
 
+    @Test
+    @DisplayName("Должен выбросить исключение при запросе версии чужой карты")
+    void getCardVersion_ShouldThrowException_WhenAccessDenied() {
+        // Given
+        when(cardRepository.findVersionById(1L)).thenReturn(Optional.of(new CardVersion(1L, 1L, 0L)));
+        when(userService.isAdmin(2L)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> cardService.getCardVersion(1L, 2L))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessage("Access denied");
+        verify(cardRepository, never()).findById(anyLong());
+    }
+
     @Test
     @DisplayName("Должен вернуть страницу карт пользователя")
     void getUserCards_ShouldReturnUserCards() {
         // Given
         Pageable pageable = mock(Pageable.class);
         Page<Card> expectedPage = new PageImpl<>(List.of(testCard));
-        when(userService.findById(1L)).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByOwner(testUser, pageable)).thenReturn(expectedPage);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.findByOwnerId(1L, pageable)).thenReturn(expectedPage);
 
         // When
         Page<Card> result = cardService.getUserCards(1L, pageable);
@@ -163,8 +206,8 @@ class CardServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).getCardHolder()).isEqualTo("John Doe");
-        verify(userService).findById(1L);
-        verify(cardRepository).findByOwner(testUser, pageable);
+        verify(userRepository).existsById(1L);
+        verify(cardRepository).findByOwnerId(1L, pageable);
     }
 
     @Test
@@ -275,29 +318,55 @@ class CardServiceTest {
     @DisplayName("Должен вернуть общий баланс пользователя")
     void getUserTotalBalance_ShouldReturnTotalBalance() {
         // Given
-        Card card1 = new Card();
-        card1.setBalance(new BigDecimal("100.00"));
-        Card card2 = new Card();
-        card2.setBalance(new BigDecimal("200.00"));
-        
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByOwner(testUser)).thenReturn(List.of(card1, card2));
+        when(cardRepository.sumBalanceByOwnerId(1L)).thenReturn(new BigDecimal("300.00"));
 
         // When
         BigDecimal result = cardService.getUserTotalBalance(1L);
 
         // Then
         assertThat(result).isEqualTo(new BigDecimal("300.00"));
-        verify(userRepository).findById(1L);
-        verify(cardRepository).findByOwner(testUser);
+        verify(cardRepository).sumBalanceByOwnerId(1L);
+        verify(cardRepository, never()).findByOwner(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Должен собрать сводку по картам пользователя из агрегата по статусам")
+    void getUserCardSummary_ShouldCombineStatusAggregates() {
+        // Given
+        when(cardRepository.summarizeByOwnerId(1L)).thenReturn(List.of(
+                new CardStatusSummary(CardStatus.ACTIVE, 3L, new BigDecimal("250.00")),
+                new CardStatusSummary(CardStatus.BLOCKED, 1L, new BigDecimal("50.00"))));
+
+        // When
+        CardSummary result = cardService.getUserCardSummary(1L);
+
+        // Then
+        assertThat(result.totalBalance()).isEqualByComparingTo("300.00");
+        assertThat(result.totalCards()).isEqualTo(4);
+        assertThat(result.activeCards()).isEqualTo(3);
+        assertThat(result.blockedCards()).isEqualTo(1);
+        assertThat(result.expiredCards()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен вернуть нулевую сводку для пользователя без карт")
+    void getUserCardSummary_ShouldReturnZeros_WhenUserHasNoCards() {
+        // Given
+        when(cardRepository.summarizeByOwnerId(1L)).thenReturn(List.of());
+
+        // When
+        CardSummary result = cardService.getUserCardSummary(1L);
+
+        // Then
+        assertThat(result).isEqualTo(new CardSummary(BigDecimal.ZERO, 0, 0, 0, 0));
     }
 
     @Test
     @DisplayName("Должен вернуть активные карты пользователя")
     void getUserActiveCards_ShouldReturnActiveCards() {
         // Given
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByOwnerAndStatus(testUser, CardStatus.ACTIVE)).thenReturn(List.of(testCard));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.findByOwnerIdAndStatus(1L, CardStatus.ACTIVE)).thenReturn(List.of(testCard));
 
         // When
         List<Card> result = cardService.getUserActiveCards(1L);
@@ -305,8 +374,8 @@ class CardServiceTest {
         // Then
         assertThat(result).hasSize(1);
         assertThat(result.getFirst().getStatus()).isEqualTo(CardStatus.ACTIVE);
-        verify(userRepository).findById(1L);
-        verify(cardRepository).findByOwnerAndStatus(testUser, CardStatus.ACTIVE);
+        verify(userRepository).existsById(1L);
+        verify(cardRepository).findByOwnerIdAndStatus(1L, CardStatus.ACTIVE);
     }
 
     @Test
@@ -314,8 +383,8 @@ class CardServiceTest {
     void getUserBlockedCards_ShouldReturnBlockedCards() {
         // Given
         testCard.setStatus(CardStatus.BLOCKED);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByOwnerAndStatus(testUser, CardStatus.BLOCKED)).thenReturn(List.of(testCard));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.findByOwnerIdAndStatus(1L, CardStatus.BLOCKED)).thenReturn(List.of(testCard));
 
         // When
         List<Card> result = cardService.getUserBlockedCards(1L);
@@ -323,7 +392,35 @@ class CardServiceTest {
         // Then
         assertThat(result).hasSize(1);
         assertThat(result.getFirst().getStatus()).isEqualTo(CardStatus.BLOCKED);
-        verify(userRepository).findById(1L);
-        verify(cardRepository).findByOwnerAndStatus(testUser, CardStatus.BLOCKED);
+        verify(userRepository).existsById(1L);
+        verify(cardRepository).findByOwnerIdAndStatus(1L, CardStatus.BLOCKED);
+    }
+
+    @Test
+    @DisplayName("Должен удалить карту с нулевым балансом без отложенных зачислений")
+    void deleteCard_ShouldDeleteCard_WhenNoPendingCredits() {
+        // Given
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(testCard));
+        when(pendingCreditRepository.existsByCardId(1L)).thenReturn(false);
+
+        // When
+        cardService.deleteCard(1L, 1L);
+
+        // Then
+        verify(cardRepository).delete(testCard);
+    }
+
+    @Test
+    @DisplayName("Должен отклонить удаление горячей карты с несброшенными зачислениями")
+    void deleteCard_ShouldThrowException_WhenHotCardHasPendingCredits() {
+        // Given
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(testCard));
+        when(pendingCreditRepository.existsByCardId(1L)).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> cardService.deleteCard(1L, 1L))
+                .isInstanceOf(BusinessLogicException.class)
+                .hasMessage("Cannot delete card with pending credits");
+        verify(cardRepository, never()).delete(any(Card.class));
     }
 }
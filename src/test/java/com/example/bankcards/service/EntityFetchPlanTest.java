@@ -0,0 +1,212 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.RoleName;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.UserAuthorityCache;
+import com.example.bankcards.util.EncryptionUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardService.class, TransferService.class, OptimisticLockRetry.class, HotCardLedger.class, UserService.class,
+        CustomUserDetailsService.class, UserAuthorityCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("План загрузки связей в сервисах")
+class EntityFetchPlanTest {
+
+    @MockBean
+    private EncryptionUtils encryptionUtils;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User owner;
+    private User admin;
+    private Card fromCard;
+    private Transfer transfer;
+
+    @BeforeEach
+    void setUp() {
+        Role userRole = role(RoleName.USER);
+        Role adminRole = role(RoleName.ADMIN);
+        owner = user("owner", userRole);
+        admin = user("admin", adminRole);
+        User recipient = user("recipient", userRole);
+
+        fromCard = card(owner, "1111");
+        Card toCard = card(recipient, "2222");
+
+        transfer = new Transfer();
+        transfer.setFromCard(fromCard);
+        transfer.setToCard(toCard);
+        transfer.setAmount(new BigDecimal("10.00"));
+        transfer = transferRepository.save(transfer);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Карта владельца читается одним запросом без загрузки пользователя")
+    void getCardById_ShouldNotLoadOwner() {
+        // When
+        Card card = cardService.getCardById(fromCard.getId(), owner.getId());
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(Hibernate.isInitialized(card.getOwner())).isFalse();
+        assertThat(card.getOwner().getId()).isEqualTo(owner.getId());
+    }
+
+    @Test
+    @DisplayName("Перевод читается вместе с картами одним запросом, владельцы карт не загружаются")
+    void getTransferById_ShouldFetchCardsOnly() {
+        // When
+        Transfer result = transferService.getTransferById(transfer.getId(), owner.getId());
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(Hibernate.isInitialized(result.getFromCard())).isTrue();
+        assertThat(Hibernate.isInitialized(result.getToCard())).isTrue();
+        assertThat(Hibernate.isInitialized(result.getFromCard().getOwner())).isFalse();
+        assertThat(Hibernate.isInitialized(result.getToCard().getOwner())).isFalse();
+        assertThat(result.getFromCard().getMaskedNumber()).isEqualTo("**** **** **** 1111");
+    }
+
+    @Test
+    @DisplayName("Проверка администратора для чужого перевода добавляет ровно один запрос с ролями")
+    void getTransferById_ShouldLoadRolesInSingleStatement_WhenAdminIsNotParticipant() {
+        // When
+        Transfer result = transferService.getTransferById(transfer.getId(), admin.getId());
+
+        // Then
+        assertThat(result.getId()).isEqualTo(transfer.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Проверка роли администратора выполняется одним запросом")
+    void isAdmin_ShouldFetchRolesWithUser() {
+        // When
+        boolean ownerIsAdmin = userService.isAdmin(owner.getId());
+        boolean adminIsAdmin = userService.isAdmin(admin.getId());
+
+        // Then
+        assertThat(ownerIsAdmin).isFalse();
+        assertThat(adminIsAdmin).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Загрузка пользователя для аутентификации читает роли тем же запросом")
+    void loadUserByUsername_ShouldFetchRolesWithUser() {
+        // When
+        UserDetails details = customUserDetailsService.loadUserByUsername("admin");
+
+        // Then
+        assertThat(details.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ADMIN");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Карты пользователя по статусу читаются без загрузки самого пользователя")
+    void getUserActiveCards_ShouldNotLoadUser() {
+        // When
+        List<Card> cards = cardService.getUserActiveCards(owner.getId());
+
+        // Then
+        assertThat(cards).extracting(Card::getId).containsExactly(fromCard.getId());
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+        assertThat(Hibernate.isInitialized(cards.getFirst().getOwner())).isFalse();
+    }
+
+    private Role role(RoleName name) {
+        Role role = new Role();
+        role.setName(name);
+        return roleRepository.save(role);
+    }
+
+    private User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPasswordHash("hash");
+        user.setRoles(Set.of(role));
+        return userRepository.save(user);
+    }
+
+    private Card card(User owner, String lastFour) {
+        return cardRepository.save(TestCards.active(owner, lastFour, new BigDecimal("100.00")));
+    }
+}
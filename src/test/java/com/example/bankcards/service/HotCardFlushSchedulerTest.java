@@ -0,0 +1,32 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Фоновый сброс отложенных зачислений")
+class HotCardFlushSchedulerTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(HotCardLedger.class, () -> mock(HotCardLedger.class))
+            .withUserConfiguration(HotCardFlushScheduler.class);
+
+    @Test
+    @DisplayName("Без горячих карт в настройках фоновый сброс не создается")
+    void scheduler_ShouldBeAbsent_WhenNoHotCardsConfigured() {
+        contextRunner
+                .withPropertyValues("transfer.hot-cards.card-ids=")
+                .run(context -> assertThat(context).doesNotHaveBean(HotCardFlushScheduler.class));
+    }
+
+    @Test
+    @DisplayName("С горячими картами в настройках фоновый сброс создается")
+    void scheduler_ShouldBePresent_WhenHotCardsConfigured() {
+        contextRunner
+                .withPropertyValues("transfer.hot-cards.card-ids=1,2")
+                .run(context -> assertThat(context).hasSingleBean(HotCardFlushScheduler.class));
+    }
+}
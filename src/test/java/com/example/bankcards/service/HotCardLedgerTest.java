@@ -0,0 +1,235 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.TransferLocking;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.PendingCreditRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserAuthorityCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Отложенные зачисления на горячие карты")
+class HotCardLedgerTest {
+
+    private static final int SOURCES = 8;
+    private static final int TRANSFERS_PER_SOURCE = 25;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.50");
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PendingCreditRepository pendingCreditRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private User owner;
+    private Card merchant;
+    private List<Card> sources;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("merchant");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+
+        merchant = cardRepository.save(TestCards.active(owner, "0000", INITIAL_BALANCE));
+        sources = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) {
+            sources.add(cardRepository.save(TestCards.active(owner, String.format("%04d", i + 1), INITIAL_BALANCE)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pendingCreditRepository.deleteAll();
+        transferRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Зачисления многих потоков применяются к горячей карте одним UPDATE при сбросе")
+    void flushPendingCredits_ShouldCoalesceCredits_IntoSingleBalanceUpdate() throws Exception {
+        // Given
+        HotCardLedger ledger = ledger(1000);
+        TransferService transferService = transferService(ledger);
+        Long merchantVersion = merchant.getVersion();
+        int transfers = transferConcurrently(transferService, new AtomicBoolean(true));
+
+        // Строка горячей карты до сброса не менялась, зачисления ждут в очереди
+        Card beforeFlush = cardRepository.findById(merchant.getId()).orElseThrow();
+        assertThat(beforeFlush.getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+        assertThat(beforeFlush.getVersion()).isEqualTo(merchantVersion);
+        assertThat(pendingCreditRepository.count()).isEqualTo(transfers);
+
+        // When
+        int flushed = ledger.flushPendingCredits();
+
+        // Then
+        Card afterFlush = cardRepository.findById(merchant.getId()).orElseThrow();
+        assertThat(flushed).isEqualTo(transfers);
+        assertThat(afterFlush.getBalance())
+                .isEqualByComparingTo(INITIAL_BALANCE.add(AMOUNT.multiply(BigDecimal.valueOf(transfers))));
+        assertThat(afterFlush.getVersion()).isEqualTo(merchantVersion + 1);
+        assertThat(pendingCreditRepository.count()).isZero();
+        DistributionSummary coalesced = meterRegistry.get(HotCardLedger.COALESCED_CREDITS).summary();
+        assertThat(coalesced.count()).isEqualTo(1);
+        assertThat(coalesced.totalAmount()).isEqualTo(transfers);
+        assertThat(totalBalance()).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(SOURCES + 1)));
+    }
+
+    @Test
+    @DisplayName("Сброс порциями не теряет и не повторяет зачисления при параллельных переводах и сбросах")
+    void flushPendingCredits_ShouldConserveBalance_WhenFlushesRunConcurrently() throws Exception {
+        // Given
+        HotCardLedger ledger = ledger(7);
+        TransferService transferService = transferService(ledger);
+        AtomicBoolean transferring = new AtomicBoolean(true);
+        ExecutorService flushers = Executors.newFixedThreadPool(2);
+        List<Future<?>> flushes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            flushes.add(flushers.submit(() -> {
+                while (transferring.get()) {
+                    ledger.flushPendingCredits();
+                }
+                return null;
+            }));
+        }
+
+        // When
+        int transfers = transferConcurrently(transferService, transferring);
+        for (Future<?> flush : flushes) {
+            flush.get(60, TimeUnit.SECONDS);
+        }
+        flushers.shutdown();
+        ledger.flushPendingCredits();
+
+        // Then
+        assertThat(pendingCreditRepository.count()).isZero();
+        assertThat(cardRepository.findById(merchant.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(INITIAL_BALANCE.add(AMOUNT.multiply(BigDecimal.valueOf(transfers))));
+        assertThat(totalBalance()).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(SOURCES + 1)));
+    }
+
+    @Test
+    @DisplayName("Пакетный перевод откладывает зачисления на горячую карту, не меняя ее строку")
+    void transferBatch_ShouldDeferCredits_WhenTargetIsHot() {
+        // Given
+        HotCardLedger ledger = ledger(1000);
+        TransferService transferService = transferService(ledger);
+        Long merchantVersion = merchant.getVersion();
+        List<TransferRequest> requests = sources.stream().map(source -> {
+            TransferRequest request = new TransferRequest();
+            request.setFromCardId(source.getId());
+            request.setToCardId(merchant.getId());
+            request.setAmount(AMOUNT);
+            return request;
+        }).toList();
+
+        // When
+        List<TransferBatchResult> results = transferService.transferBatch(requests);
+
+        // Then
+        assertThat(results).hasSize(SOURCES).allMatch(result -> result.error() == null);
+        Card beforeFlush = cardRepository.findById(merchant.getId()).orElseThrow();
+        assertThat(beforeFlush.getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+        assertThat(beforeFlush.getVersion()).isEqualTo(merchantVersion);
+        assertThat(pendingCreditRepository.count()).isEqualTo(SOURCES);
+
+        ledger.flushPendingCredits();
+        assertThat(cardRepository.findById(merchant.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(INITIAL_BALANCE.add(AMOUNT.multiply(BigDecimal.valueOf(SOURCES))));
+        assertThat(totalBalance()).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(SOURCES + 1)));
+    }
+
+    // Каждый поток переводит со своей карты на горячую; по завершении всех потоков running сбрасывается
+    private int transferConcurrently(TransferService transferService, AtomicBoolean running) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SOURCES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (Card source : sources) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < TRANSFERS_PER_SOURCE; j++) {
+                    transferService.transferBetweenUserCards(source.getId(), merchant.getId(), AMOUNT, owner.getId());
+                }
+                return TRANSFERS_PER_SOURCE;
+            }));
+        }
+
+        start.countDown();
+        int transfers = 0;
+        try {
+            for (Future<Integer> result : results) {
+                transfers += result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+        }
+        return transfers;
+    }
+
+    private HotCardLedger ledger(int flushBatchSize) {
+        return new HotCardLedger(pendingCreditRepository, cardRepository, transactionTemplate, meterRegistry,
+                Set.of(merchant.getId()), 16, flushBatchSize);
+    }
+
+    private TransferService transferService(HotCardLedger ledger) {
+        return new TransferService(transferRepository, cardRepository, userRepository,
+                new UserAuthorityCache(userRepository, 100, Duration.ofMinutes(5)), meterRegistry, transactionTemplate,
+                new OptimisticLockRetry(meterRegistry, 5, Duration.ZERO, Duration.ZERO), ledger,
+                TransferLocking.PESSIMISTIC);
+    }
+
+    private BigDecimal totalBalance() {
+        return cardRepository.findAll().stream().map(Card::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
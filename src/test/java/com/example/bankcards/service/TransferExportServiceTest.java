@@ -0,0 +1,191 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.DataFormat;
+import com.example.bankcards.exception.ValidationException;
+import com.example.bankcards.mapper.TransferMapperImpl;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransferExportService.class, TransferMapperImpl.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Потоковая выгрузка истории переводов")
+class TransferExportServiceTest {
+
+    private static final int TRANSFERS = 1_200;
+
+    @Autowired
+    private TransferExportService transferExportService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        owner = user("owner");
+        User other = user("other");
+        Card ownerCard = card(owner, "1111");
+        Card otherCard = card(other, "2222");
+        Card unrelatedCard = card(other, "3333");
+
+        // Каждый третий перевод не касается карт владельца и в выгрузку попасть не должен
+        List<Transfer> transfers = new ArrayList<>();
+        // Без долей секунды, чтобы границы периода совпадали с сохраненными значениями точно
+        start = LocalDateTime.now().minusDays(TRANSFERS).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            Transfer transfer = new Transfer();
+            transfer.setFromCard(i % 3 == 2 ? unrelatedCard : ownerCard);
+            transfer.setToCard(otherCard);
+            transfer.setAmount(BigDecimal.valueOf(i + 1));
+            transfer.setTransferDate(start.plusDays(i));
+            transfers.add(transfer);
+        }
+        transferRepository.saveAll(transfers);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("NDJSON содержит всю историю пользователя от новых к старым без загрузки сущностей")
+    void exportUserTransfers_ShouldStreamNdjsonWithoutLoadingEntities() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = transferExportService.exportUserTransfers(owner.getId(), null, null, DataFormat.NDJSON, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(TRANSFERS * 2 / 3);
+        assertThat(lines).hasSize(TRANSFERS * 2 / 3);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode last = objectMapper.readTree(lines[lines.length - 1]);
+        assertThat(first.get("amount").decimalValue()).isEqualByComparingTo(BigDecimal.valueOf(TRANSFERS - 1));
+        assertThat(first.get("fromCardMaskedNumber").asText()).isEqualTo("**** **** **** 1111");
+        assertThat(first.get("fromUserId").asLong()).isEqualTo(owner.getId());
+        assertThat(last.get("amount").decimalValue()).isEqualByComparingTo(BigDecimal.ONE);
+
+        // id карт и один потоковый запрос, строки не становятся управляемыми сущностями
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("CSV за период содержит заголовок и только переводы из периода")
+    void exportUserTransfers_ShouldWriteCsvForPeriod() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LocalDateTime startDate = start.plusDays(10);
+        LocalDateTime endDate = start.plusDays(19);
+
+        // When
+        long rows = transferExportService.exportUserTransfers(owner.getId(), startDate, endDate,
+                DataFormat.CSV, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(7);
+        assertThat(lines).hasSize(8);
+        assertThat(lines.getFirst()).isEqualTo(TransferExportService.CSV_HEADER);
+        assertThat(lines.get(1)).contains(",**** **** **** 1111,**** **** **** 2222,20.00,");
+        assertThat(lines.getLast()).contains(",11.00,");
+    }
+
+    @Test
+    @DisplayName("Для пользователя без карт CSV состоит только из заголовка")
+    void exportUserTransfers_ShouldWriteOnlyHeader_WhenUserHasNoCards() throws Exception {
+        // Given
+        User newcomer = user("newcomer");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = transferExportService.exportUserTransfers(newcomer.getId(), null, null, DataFormat.CSV, out);
+
+        // Then
+        assertThat(rows).isZero();
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(TransferExportService.CSV_HEADER + "\n");
+    }
+
+    @Test
+    @DisplayName("Должен отклонить период, у которого начало позже конца")
+    void exportUserTransfers_ShouldThrowException_WhenPeriodReversed() {
+        // When & Then
+        assertThatThrownBy(() -> transferExportService.exportUserTransfers(owner.getId(), start.plusDays(5), start,
+                DataFormat.CSV, new ByteArrayOutputStream()))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("startDate must not be after endDate");
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPasswordHash("hash");
+        return userRepository.save(user);
+    }
+
+    private Card card(User owner, String lastFour) {
+        return cardRepository.save(TestCards.active(owner, lastFour, new BigDecimal("100.00")));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.TransferDTOResponse;
+import com.example.bankcards.entity.TransferIdempotencyKey;
+import com.example.bankcards.exception.ValidationException;
+import com.example.bankcards.repository.TransferIdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Тесты для TransferIdempotencyService")
+class TransferIdempotencyServiceTest {
+
+    @Mock
+    private TransferIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private TransferIdempotencyService idempotencyService;
+
+    private TransferRequest request;
+    private TransferDTOResponse response;
+    private AtomicInteger transferCalls;
+    private Supplier<TransferDTOResponse> transfer;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new TransferIdempotencyService(idempotencyKeyRepository, objectMapper,
+                transactionTemplate, new OptimisticLockRetry(new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO),
+                100, Duration.ofMinutes(10), Duration.ofDays(1));
+
+        request = new TransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("100.00"));
+
+        response = new TransferDTOResponse();
+        response.setId(10L);
+        response.setAmount(new BigDecimal("100.00"));
+        response.setTransferDate(LocalDateTime.now());
+
+        transferCalls = new AtomicInteger();
+        transfer = () -> {
+            transferCalls.incrementAndGet();
+            return response;
+        };
+    }
+
+    @Test
+    @DisplayName("Должен выполнить перевод один раз и вернуть сохраненный ответ при повторе")
+    void execute_ShouldReplayStoredResponse_WhenKeyRepeated() {
+        // Given
+        runTransactionCallbacks();
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.empty());
+
+        // When
+        TransferDTOResponse first = idempotencyService.execute(1L, "key-1", request, transfer);
+        TransferDTOResponse replay = idempotencyService.execute(1L, "key-1", request, transfer);
+
+        // Then
+        assertThat(first).isEqualTo(response);
+        assertThat(replay).isEqualTo(response);
+        assertThat(transferCalls).hasValue(1);
+        verify(idempotencyKeyRepository).saveAndFlush(any(TransferIdempotencyKey.class));
+        verify(idempotencyKeyRepository, times(1)).findByUserIdAndIdempotencyKey(1L, "key-1");
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ответ из базы без выполнения перевода, если ключа нет в кэше")
+    void execute_ShouldReadResponseFromDatabase_WhenNotCached() throws Exception {
+        // Given
+        TransferIdempotencyKey stored = new TransferIdempotencyKey();
+        stored.setRequestFingerprint("1:2:100");
+        stored.setResponse(objectMapper.writeValueAsString(response));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(stored));
+
+        // When
+        TransferDTOResponse replay = idempotencyService.execute(1L, "key-1", request, transfer);
+
+        // Then
+        assertThat(replay.getId()).isEqualTo(10L);
+        assertThat(transferCalls).hasValue(0);
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    @DisplayName("Должен отклонить повтор ключа с другими параметрами перевода")
+    void execute_ShouldThrowException_WhenKeyReusedForDifferentTransfer() {
+        // Given
+        runTransactionCallbacks();
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.empty());
+        idempotencyService.execute(1L, "key-1", request, transfer);
+
+        TransferRequest otherRequest = new TransferRequest();
+        otherRequest.setFromCardId(1L);
+        otherRequest.setToCardId(2L);
+        otherRequest.setAmount(new BigDecimal("500.00"));
+
+        // When & Then
+        assertThatThrownBy(() -> idempotencyService.execute(1L, "key-1", otherRequest, transfer))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Idempotency key was already used for a different transfer");
+        assertThat(transferCalls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Должен вернуть ответ конкурентного запроса при конфликте уникального ключа")
+    void execute_ShouldReturnWinnerResponse_WhenConcurrentRequestCommittedFirst() throws Exception {
+        // Given
+        TransferIdempotencyKey stored = new TransferIdempotencyKey();
+        stored.setRequestFingerprint("1:2:100");
+        stored.setResponse(objectMapper.writeValueAsString(response));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty(), Optional.of(stored));
+        when(transactionTemplate.execute(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // When
+        TransferDTOResponse result = idempotencyService.execute(1L, "key-1", request, transfer);
+
+        // Then
+        assertThat(result.getId()).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("Должен отклонить пустой ключ идемпотентности")
+    void execute_ShouldThrowException_WhenKeyBlank() {
+        assertThatThrownBy(() -> idempotencyService.execute(1L, " ", request, transfer))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(idempotencyKeyRepository, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Должен удалить ключи старше срока хранения")
+    void purgeExpiredKeys_ShouldDeleteKeysOlderThanRetention() {
+        // Given
+        when(idempotencyKeyRepository.deleteCreatedBefore(any(LocalDateTime.class))).thenReturn(3);
+
+        // When
+        idempotencyService.purgeExpiredKeys();
+
+        // Then
+        verify(idempotencyKeyRepository).deleteCreatedBefore(any(LocalDateTime.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionCallbacks() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<TransferDTOResponse>) invocation.getArgument(0)).doInTransaction(null));
+    }
+}
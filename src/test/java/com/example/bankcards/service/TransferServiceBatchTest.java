@@ -0,0 +1,132 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserAuthorityCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransferService.class, OptimisticLockRetry.class, HotCardLedger.class, UserAuthorityCache.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Тесты пакетных переводов TransferService")
+class TransferServiceBatchTest {
+
+    private static final int CARDS = 20;
+    private static final int TRANSFERS = 1000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("payroll");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("1000 переводов пакетом дают тот же результат за малую долю запросов")
+    void transferBatchBetweenUserCards_ShouldMatchSingleTransfers_WithFarFewerStatements() {
+        // Given
+        List<Card> singleCards = createCards("single");
+        List<Card> batchCards = createCards("batch");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        statistics.clear();
+        for (TransferRequest request : payroll(singleCards)) {
+            transferService.transferBetweenUserCards(request.getFromCardId(), request.getToCardId(),
+                    request.getAmount(), owner.getId());
+        }
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<TransferBatchResult> results = transferService.transferBatchBetweenUserCards(payroll(batchCards), owner.getId());
+        long batchStatements = statistics.getPrepareStatementCount();
+
+        // Then
+        assertThat(results).hasSize(TRANSFERS).allMatch(result -> result.error() == null);
+        for (int i = 0; i < CARDS; i++) {
+            BigDecimal singleBalance = cardRepository.findById(singleCards.get(i).getId()).orElseThrow().getBalance();
+            BigDecimal batchBalance = cardRepository.findById(batchCards.get(i).getId()).orElseThrow().getBalance();
+            assertThat(batchBalance).isEqualByComparingTo(singleBalance);
+        }
+        assertThat(batchStatements).isLessThan(singleStatements / 20);
+    }
+
+    private List<Card> createCards(String prefix) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            Card card = TestCards.active(owner, String.format("%04d", i), INITIAL_BALANCE);
+            card.setNumber(prefix + "-" + i);
+            cards.add(card);
+        }
+        return cardRepository.saveAll(cards);
+    }
+
+    private List<TransferRequest> payroll(List<Card> cards) {
+        List<TransferRequest> requests = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            TransferRequest request = new TransferRequest();
+            request.setFromCardId(cards.get(i % CARDS).getId());
+            request.setToCardId(cards.get((i * 7 + 1) % CARDS).getId());
+            request.setAmount(BigDecimal.valueOf(i % 97 + 1));
+            if (request.getFromCardId().equals(request.getToCardId())) {
+                request.setToCardId(cards.get((i + 1) % CARDS).getId());
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.TestCards;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.enums.TransferLocking;
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserAuthorityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({HotCardLedger.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Конкурентные тесты для TransferService")
+class TransferServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private HotCardLedger hotCardLedger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private Card cardA;
+    private Card cardB;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("concurrent");
+        owner.setPasswordHash("hash");
+        owner = userRepository.save(owner);
+
+        cardA = cardRepository.save(TestCards.active(owner, "1111", INITIAL_BALANCE));
+        cardB = cardRepository.save(TestCards.active(owner, "2222", INITIAL_BALANCE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    // Один и тот же сценарий для обоих режимов блокировки: при пессимистичной встречные переводы не должны давать
+    // дедлоков, при оптимистичной проигравшие конфликт транзакции повторяются
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(TransferLocking.class)
+    @DisplayName("Встречные переводы из многих потоков не теряют обновлений и не дают дедлоков")
+    void transferBetweenUserCards_ShouldConserveTotalBalance_UnderContention(TransferLocking locking) throws Exception {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransferService transferService = transferService(locking, meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BigDecimal>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            boolean forward = i % 2 == 0;
+            results.add(executor.submit(() -> {
+                start.await();
+                BigDecimal movedToB = BigDecimal.ZERO;
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    BigDecimal amount = BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 50));
+                    try {
+                        if (forward) {
+                            transferService.transferBetweenUserCards(cardA.getId(), cardB.getId(), amount, owner.getId());
+                            movedToB = movedToB.add(amount);
+                        } else {
+                            transferService.transferBetweenUserCards(cardB.getId(), cardA.getId(), amount, owner.getId());
+                            movedToB = movedToB.subtract(amount);
+                        }
+                    } catch (BusinessLogicException | OptimisticLockingFailureException ignored) {
+                        // Недостаточно средств или исчерпанные повторы - допустимые исходы под нагрузкой,
+                        // в обоих случаях транзакция откатилась и балансы не изменились
+                    }
+                }
+                return movedToB;
+            }));
+        }
+
+        // When
+        start.countDown();
+        BigDecimal netMovedToB = BigDecimal.ZERO;
+        for (Future<BigDecimal> result : results) {
+            netMovedToB = netMovedToB.add(result.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Then
+        BigDecimal balanceA = cardRepository.findById(cardA.getId()).orElseThrow().getBalance();
+        BigDecimal balanceB = cardRepository.findById(cardB.getId()).orElseThrow().getBalance();
+
+        assertThat(balanceA.add(balanceB)).isEqualByComparingTo(INITIAL_BALANCE.add(INITIAL_BALANCE));
+        assertThat(balanceA).isEqualByComparingTo(INITIAL_BALANCE.subtract(netMovedToB));
+        assertThat(balanceB).isEqualByComparingTo(INITIAL_BALANCE.add(netMovedToB));
+        assertThat(balanceA.signum()).isGreaterThanOrEqualTo(0);
+        assertThat(balanceB.signum()).isGreaterThanOrEqualTo(0);
+
+        // Переводы действительно фиксировались, и каждый поднял версию обеих карт ровно на единицу
+        long committed = transferRepository.count();
+        assertThat(committed).isPositive();
+        assertThat(cardRepository.findById(cardA.getId()).orElseThrow().getVersion()).isEqualTo(committed);
+        assertThat(cardRepository.findById(cardB.getId()).orElseThrow().getVersion()).isEqualTo(committed);
+        if (locking == TransferLocking.OPTIMISTIC) {
+            assertThat(meterRegistry.counter(OptimisticLockRetry.RETRY_COUNTER, "operation", "transfer").count())
+                    .isPositive();
+        }
+    }
+
+    private TransferService transferService(TransferLocking locking, MeterRegistry meterRegistry) {
+        return new TransferService(transferRepository, cardRepository, userRepository,
+                new UserAuthorityCache(userRepository, 100, Duration.ofMinutes(5)), meterRegistry, transactionTemplate,
+                new OptimisticLockRetry(meterRegistry, 50, Duration.ofMillis(1), Duration.ofMillis(20)), hotCardLedger,
+                locking);
+    }
+}
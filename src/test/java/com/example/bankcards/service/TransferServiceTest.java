@@ -1,41 +1,60 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.request.TransferRequest;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.PendingCredit;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.enums.CardStatus;
+import com.example.bankcards.enums.TransferLocking;
 import com.example.bankcards.exception.AccessDeniedException;
 import com.example.bankcards.exception.BusinessLogicException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.PendingCreditRepository;
 import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.TransferView;
+import com.example.bankcards.security.UserAuthorityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Тесты для TransferService")
 class TransferServiceTest {
 
+    private static final int MAX_ATTEMPTS = 3;
+
     @Mock
     private TransferRepository transferRepository;
 
@@ -45,7 +64,15 @@ class TransferServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private UserAuthorityCache userAuthorityCache;
+
+    @Mock
+    private PendingCreditRepository pendingCreditRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private TransferService transferService;
 
     private User testUser;
@@ -55,6 +82,8 @@ class TransferServiceTest {
 
     @BeforeEach
     void setUp() {
+        transferService = transferService(TransferLocking.PESSIMISTIC);
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -63,12 +92,14 @@ class TransferServiceTest {
         fromCard.setId(1L);
         fromCard.setBalance(new BigDecimal("1000.00"));
         fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setExpiry(LocalDate.now().plusYears(3));
         fromCard.setOwner(testUser);
 
         toCard = new Card();
         toCard.setId(2L);
         toCard.setBalance(new BigDecimal("500.00"));
         toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setExpiry(LocalDate.now().plusYears(3));
         toCard.setOwner(testUser);
 
         testTransfer = new Transfer();
@@ -84,8 +115,8 @@ class TransferServiceTest {
     void transferBetweenUserCards_ShouldPerformTransfer_WhenValidData() {
         // Given
         BigDecimal amount = new BigDecimal("100.00");
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
         when(cardRepository.save(any(Card.class))).thenReturn(fromCard, toCard);
         when(transferRepository.save(any(Transfer.class))).thenReturn(testTransfer);
 
@@ -102,10 +133,117 @@ class TransferServiceTest {
         assertThat(fromCard.getBalance()).isEqualTo(new BigDecimal("900.00"));
         assertThat(toCard.getBalance()).isEqualTo(new BigDecimal("600.00"));
         
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(2L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
         verify(cardRepository, times(2)).save(any(Card.class));
         verify(transferRepository).save(any(Transfer.class));
+        assertThat(meterRegistry.get(TransferService.TRANSFER_TIMER).tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен блокировать карты по возрастанию id при обратном переводе")
+    void transferBetweenUserCards_ShouldLockCardsInAscendingIdOrder_WhenReverseDirection() {
+        // Given
+        BigDecimal amount = new BigDecimal("100.00");
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Transfer result = transferService.transferBetweenUserCards(2L, 1L, amount, 1L);
+
+        // Then
+        assertThat(result.getFromCard()).isEqualTo(toCard);
+        assertThat(result.getToCard()).isEqualTo(fromCard);
+        assertThat(toCard.getBalance()).isEqualTo(new BigDecimal("400.00"));
+        assertThat(fromCard.getBalance()).isEqualTo(new BigDecimal("1100.00"));
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        inOrder.verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
+    }
+
+    @Test
+    @DisplayName("При оптимистичной блокировке читает карты без блокировок и повторяет перевод после конфликта версий")
+    void transferBetweenUserCards_ShouldRetry_WhenOptimisticLockConflict() {
+        // Given
+        transferService = transferService(TransferLocking.OPTIMISTIC);
+        // Каждая попытка читает карты заново, как новая транзакция
+        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenAnswer(invocation -> Optional.of(card(1L, "1000.00")));
+        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenAnswer(invocation -> Optional.of(card(2L, "500.00")));
+        when(transferRepository.save(any(Transfer.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Card.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Transfer result = transferService.transferBetweenUserCards(1L, 2L, new BigDecimal("100.00"), 1L);
+
+        // Then
+        assertThat(result.getFromCard().getBalance()).isEqualTo(new BigDecimal("900.00"));
+        assertThat(result.getToCard().getBalance()).isEqualTo(new BigDecimal("600.00"));
+        verify(cardRepository, times(2)).findByIdAndOwnerId(1L, 1L);
+        verify(cardRepository, never()).findByIdAndOwnerIdForUpdate(anyLong(), anyLong());
+        assertThat(meterRegistry.get(OptimisticLockRetry.RETRY_COUNTER).tag("operation", "transfer").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен пробросить конфликт версий, когда попытки исчерпаны")
+    void transferBetweenUserCards_ShouldThrowException_WhenRetriesExhausted() {
+        // Given
+        transferService = transferService(TransferLocking.OPTIMISTIC);
+        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenAnswer(invocation -> Optional.of(card(1L, "1000.00")));
+        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenAnswer(invocation -> Optional.of(card(2L, "500.00")));
+        when(transferRepository.save(any(Transfer.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Card.class, 1L));
+
+        // When & Then
+        assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, new BigDecimal("100.00"), 1L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(transferRepository, times(MAX_ATTEMPTS)).save(any(Transfer.class));
+        assertThat(meterRegistry.get(OptimisticLockRetry.RETRY_COUNTER).tag("operation", "transfer").counter().count())
+                .isEqualTo(MAX_ATTEMPTS - 1);
+        assertThat(meterRegistry.get(OptimisticLockRetry.EXHAUSTED_COUNTER).tag("operation", "transfer").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Зачисление на горячую карту откладывается в очередь, а ее строка не блокируется и не изменяется")
+    void transferBetweenUserCards_ShouldDeferCredit_WhenTargetCardIsHot() {
+        // Given
+        transferService = transferService(TransferLocking.PESSIMISTIC, Set.of(2L));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Transfer result = transferService.transferBetweenUserCards(1L, 2L, new BigDecimal("100.00"), 1L);
+
+        // Then
+        assertThat(result.getToCard()).isSameAs(toCard);
+        assertThat(fromCard.getBalance()).isEqualTo(new BigDecimal("900.00"));
+        assertThat(toCard.getBalance()).isEqualTo(new BigDecimal("500.00"));
+        verify(cardRepository, never()).findByIdAndOwnerIdForUpdate(2L, 1L);
+        verify(cardRepository).save(fromCard);
+        verify(cardRepository, never()).save(toCard);
+        verify(pendingCreditRepository).save(argThat((PendingCredit credit) ->
+                credit.getCardId().equals(2L) && credit.getAmount().equals(new BigDecimal("100.00"))));
+    }
+
+    @Test
+    @DisplayName("Списание с горячей карты проверяет остаток сразу, без учета еще не примененных зачислений")
+    void transferBetweenUserCards_ShouldCheckFundsSynchronously_WhenSourceCardIsHot() {
+        // Given
+        transferService = transferService(TransferLocking.PESSIMISTIC, Set.of(1L));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
+
+        // When & Then
+        assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, new BigDecimal("1000.01"), 1L))
+                .isInstanceOf(BusinessLogicException.class);
+        assertThat(fromCard.getBalance()).isEqualTo(new BigDecimal("1000.00"));
+        verifyNoInteractions(pendingCreditRepository);
     }
 
     @Test
@@ -113,13 +251,14 @@ class TransferServiceTest {
     void transferBetweenUserCards_ShouldThrowException_WhenFromCardNotFound() {
         // Given
         BigDecimal amount = new BigDecimal("100.00");
-        when(cardRepository.findByIdAndOwnerId(999L, 1L)).thenReturn(Optional.empty());
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(999L, 1L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(999L, 2L, amount, 1L))
                 .isInstanceOf(AccessDeniedException.class)
                 .hasMessage("Source card not found or access denied");
-        verify(cardRepository).findByIdAndOwnerId(999L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(999L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
     }
@@ -129,15 +268,15 @@ class TransferServiceTest {
     void transferBetweenUserCards_ShouldThrowException_WhenToCardNotFound() {
         // Given
         BigDecimal amount = new BigDecimal("100.00");
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(999L, 1L)).thenReturn(Optional.empty());
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(999L, 1L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 999L, amount, 1L))
                 .isInstanceOf(AccessDeniedException.class)
                 .hasMessage("Target card not found or access denied");
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(999L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(999L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
     }
@@ -148,15 +287,15 @@ class TransferServiceTest {
         // Given
         fromCard.setStatus(CardStatus.BLOCKED);
         BigDecimal amount = new BigDecimal("100.00");
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
                 .isInstanceOf(BusinessLogicException.class)
                 .hasMessage("Source card is not active");
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(2L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
     }
@@ -167,35 +306,75 @@ class TransferServiceTest {
         // Given
         toCard.setStatus(CardStatus.BLOCKED);
         BigDecimal amount = new BigDecimal("100.00");
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
                 .isInstanceOf(BusinessLogicException.class)
                 .hasMessage("Target card is not active");
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(2L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Должен отклонить перевод с просроченной карты, которую сборщик еще не перевел в EXPIRED")
+    void transferBetweenUserCards_ShouldThrowException_WhenFromCardExpired() {
+        // Given
+        fromCard.setExpiry(LocalDate.now().minusDays(1));
+        BigDecimal amount = new BigDecimal("100.00");
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
+
+        // When & Then
+        assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
+                .isInstanceOf(BusinessLogicException.class)
+                .hasMessage("Source card is expired");
+        verify(cardRepository, never()).save(any());
+        verify(transferRepository, never()).save(any());
+        assertThat(meterRegistry.get(TransferService.TRANSFER_REJECTED_COUNTER).tag("reason", "source_card_expired")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен отклонить перевод на просроченную карту и разрешить перевод в последний день срока")
+    void transferBetweenUserCards_ShouldThrowException_WhenToCardExpired() {
+        // Given
+        fromCard.setExpiry(LocalDate.now());
+        toCard.setExpiry(LocalDate.now().minusDays(1));
+        BigDecimal amount = new BigDecimal("100.00");
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
+
+        // When & Then
+        assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
+                .isInstanceOf(BusinessLogicException.class)
+                .hasMessage("Target card is expired");
+        verify(transferRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Должен выбросить исключение при недостаточном балансе")
     void transferBetweenUserCards_ShouldThrowException_WhenInsufficientFunds() {
         // Given
         BigDecimal amount = new BigDecimal("1500.00"); // Больше чем баланс карты
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
                 .isInstanceOf(BusinessLogicException.class)
                 .hasMessage("Insufficient funds on source card");
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(2L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
+        assertThat(meterRegistry.get(TransferService.TRANSFER_REJECTED_COUNTER).tag("reason", "insufficient_funds")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(TransferService.TRANSFER_TIMER).tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
     }
 
     @Test
@@ -203,15 +382,15 @@ class TransferServiceTest {
     void transferBetweenUserCards_ShouldThrowException_WhenAmountIsNegative() {
         // Given
         BigDecimal amount = new BigDecimal("-100.00");
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
                 .isInstanceOf(ValidationException.class)
                 .hasMessage("Transfer amount must be positive");
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(2L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
     }
@@ -221,37 +400,112 @@ class TransferServiceTest {
     void transferBetweenUserCards_ShouldThrowException_WhenAmountIsZero() {
         // Given
         BigDecimal amount = BigDecimal.ZERO;
-        when(cardRepository.findByIdAndOwnerId(1L, 1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndOwnerId(2L, 1L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(1L, 1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndOwnerIdForUpdate(2L, 1L)).thenReturn(Optional.of(toCard));
 
         // When & Then
         assertThatThrownBy(() -> transferService.transferBetweenUserCards(1L, 2L, amount, 1L))
                 .isInstanceOf(ValidationException.class)
                 .hasMessage("Transfer amount must be positive");
-        verify(cardRepository).findByIdAndOwnerId(1L, 1L);
-        verify(cardRepository).findByIdAndOwnerId(2L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(1L, 1L);
+        verify(cardRepository).findByIdAndOwnerIdForUpdate(2L, 1L);
         verify(cardRepository, never()).save(any());
         verify(transferRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Должен выполнить пакет переводов и вернуть результат по каждому элементу")
+    void transferBatchBetweenUserCards_ShouldReportPerItemOutcomes() {
+        // Given
+        User otherUser = new User();
+        otherUser.setId(2L);
+        Card foreignCard = new Card();
+        foreignCard.setId(3L);
+        foreignCard.setBalance(new BigDecimal("100.00"));
+        foreignCard.setStatus(CardStatus.ACTIVE);
+        foreignCard.setExpiry(LocalDate.now().plusYears(3));
+        foreignCard.setOwner(otherUser);
+
+        List<TransferRequest> requests = List.of(
+                transferRequest(1L, 2L, "300.00"),
+                transferRequest(1L, 2L, "800.00"),
+                transferRequest(2L, 1L, "50.00"),
+                transferRequest(1L, 3L, "10.00")
+        );
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(fromCard, toCard, foreignCard));
+
+        // When
+        List<TransferBatchResult> results = transferService.transferBatchBetweenUserCards(requests, 1L);
+
+        // Then
+        assertThat(results).extracting(TransferBatchResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(results.get(0).error()).isNull();
+        assertThat(results.get(1).error()).isEqualTo("Insufficient funds on source card");
+        assertThat(results.get(2).error()).isNull();
+        assertThat(results.get(3).error()).isEqualTo("Target card not found or access denied");
+
+        assertThat(fromCard.getBalance()).isEqualTo(new BigDecimal("750.00"));
+        assertThat(toCard.getBalance()).isEqualTo(new BigDecimal("750.00"));
+        assertThat(foreignCard.getBalance()).isEqualTo(new BigDecimal("100.00"));
+
+        verify(transferRepository).saveAll(argThat(transfers -> ((List<?>) transfers).size() == 2));
+        verify(cardRepository, never()).findByIdAndOwnerIdForUpdate(any(), any());
+    }
+
+    @Test
+    @DisplayName("Должен выполнить пакет переводов администратора между картами разных пользователей")
+    void transferBatch_ShouldTransferBetweenAnyCards() {
+        // Given
+        User otherUser = new User();
+        otherUser.setId(2L);
+        toCard.setOwner(otherUser);
+        when(cardRepository.findAllByIdInForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+
+        // When
+        List<TransferBatchResult> results = transferService.transferBatch(List.of(transferRequest(1L, 2L, "100.00")));
+
+        // Then
+        assertThat(results).hasSize(1);
+        assertThat(results.getFirst().transfer().getToCard()).isEqualTo(toCard);
+        assertThat(toCard.getBalance()).isEqualTo(new BigDecimal("600.00"));
+    }
+
     @Test
     @DisplayName("Должен вернуть страницу переводов пользователя")
     void getUserTransfers_ShouldReturnUserTransfers() {
         // Given
         Pageable pageable = mock(Pageable.class);
-        Page<Transfer> expectedPage = new PageImpl<>(List.of(testTransfer));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(transferRepository.findByUser(testUser, pageable)).thenReturn(expectedPage);
+        Page<TransferView> expectedPage = new PageImpl<>(List.of(transferView()));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.findIdsByOwnerId(1L)).thenReturn(List.of(1L, 2L));
+        when(transferRepository.findByCardIds(List.of(1L, 2L), pageable)).thenReturn(expectedPage);
 
         // When
-        Page<Transfer> result = transferService.getUserTransfers(1L, pageable);
+        Page<TransferView> result = transferService.getUserTransfers(1L, pageable);
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
-        assertThat(result.getContent().getFirst().getAmount()).isEqualTo(new BigDecimal("100.00"));
-        verify(userRepository).findById(1L);
-        verify(transferRepository).findByUser(testUser, pageable);
+        assertThat(result.getContent().getFirst().amount()).isEqualTo(new BigDecimal("100.00"));
+        verify(userRepository).existsById(1L);
+        verify(transferRepository).findByCardIds(List.of(1L, 2L), pageable);
+    }
+
+    @Test
+    @DisplayName("Должен вернуть пустую страницу, если у пользователя нет карт")
+    void getUserTransfers_ShouldReturnEmptyPage_WhenUserHasNoCards() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 20);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.findIdsByOwnerId(1L)).thenReturn(List.of());
+
+        // When
+        Page<TransferView> result = transferService.getUserTransfers(1L, pageable);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        verify(transferRepository, never()).findByCardIds(any(), any());
     }
 
     @Test
@@ -259,46 +513,42 @@ class TransferServiceTest {
     void getUserTransfers_ShouldThrowException_WhenUserNotFound() {
         // Given
         Pageable pageable = mock(Pageable.class);
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(999L)).thenReturn(false);
 
         // When & Then
         assertThatThrownBy(() -> transferService.getUserTransfers(999L, pageable))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found");
-        verify(userRepository).findById(999L);
-        verify(transferRepository, never()).findByUser(any(), any());
+        verify(userRepository).existsById(999L);
+        verify(transferRepository, never()).findByCardIds(any(), any());
     }
 
     @Test
     @DisplayName("Должен выбросить исключение при доступе к чужому переводу")
     void getTransferById_ShouldThrowException_WhenAccessDenied() {
         // Given
-        User otherUser = new User();
-        otherUser.setId(2L);
-        otherUser.setUsername("otheruser");
-        
-        when(transferRepository.findById(1L)).thenReturn(Optional.of(testTransfer));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser));
+        when(transferRepository.findWithCardsById(1L)).thenReturn(Optional.of(testTransfer));
+        when(userAuthorityCache.isAdmin(2L)).thenReturn(false);
 
         // When & Then
         assertThatThrownBy(() -> transferService.getTransferById(1L, 2L))
                 .isInstanceOf(AccessDeniedException.class)
                 .hasMessage("Access denied to view this transfer");
-        verify(transferRepository).findById(1L);
-        verify(userRepository).findById(2L);
+        verify(transferRepository).findWithCardsById(1L);
+        verify(userAuthorityCache).isAdmin(2L);
     }
 
     @Test
     @DisplayName("Должен выбросить исключение при поиске несуществующего перевода")
     void getTransferById_ShouldThrowException_WhenTransferNotFound() {
         // Given
-        when(transferRepository.findById(999L)).thenReturn(Optional.empty());
+        when(transferRepository.findWithCardsById(999L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> transferService.getTransferById(999L, 1L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Transfer not found");
-        verify(transferRepository).findById(999L);
+        verify(transferRepository).findWithCardsById(999L);
     }
 
     @Test
@@ -306,16 +556,53 @@ class TransferServiceTest {
     void getAllTransfers_ShouldReturnAllTransfers() {
         // Given
         Pageable pageable = mock(Pageable.class);
-        Page<Transfer> expectedPage = new PageImpl<>(List.of(testTransfer));
-        when(transferRepository.findAll(pageable)).thenReturn(expectedPage);
+        Page<TransferView> expectedPage = new PageImpl<>(List.of(transferView()));
+        when(transferRepository.findAllViews(pageable)).thenReturn(expectedPage);
 
         // When
-        Page<Transfer> result = transferService.getAllTransfers(pageable);
+        Page<TransferView> result = transferService.getAllTransfers(pageable);
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
-        assertThat(result.getContent().getFirst().getAmount()).isEqualTo(new BigDecimal("100.00"));
-        verify(transferRepository).findAll(pageable);
+        assertThat(result.getContent().getFirst().amount()).isEqualTo(new BigDecimal("100.00"));
+        verify(transferRepository).findAllViews(pageable);
+    }
+
+    private TransferService transferService(TransferLocking locking) {
+        return transferService(locking, Set.of());
+    }
+
+    // Транзакции в unit-тесте нет: колбэк выполняется сразу, повторы без задержки
+    private TransferService transferService(TransferLocking locking, Set<Long> hotCardIds) {
+        return new TransferService(transferRepository, cardRepository, userRepository, userAuthorityCache,
+                meterRegistry, TransactionOperations.withoutTransaction(),
+                new OptimisticLockRetry(meterRegistry, MAX_ATTEMPTS, Duration.ZERO, Duration.ZERO),
+                new HotCardLedger(pendingCreditRepository, cardRepository, TransactionOperations.withoutTransaction(),
+                        meterRegistry, hotCardIds, 4, 100),
+                locking);
+    }
+
+    private Card card(Long id, String balance) {
+        Card card = new Card();
+        card.setId(id);
+        card.setBalance(new BigDecimal(balance));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setExpiry(LocalDate.now().plusYears(3));
+        card.setOwner(testUser);
+        return card;
+    }
+
+    private TransferView transferView() {
+        return new TransferView(1L, "**** **** **** 1234", "**** **** **** 5678", new BigDecimal("100.00"),
+                testTransfer.getTransferDate(), 1L, 1L);
+    }
+
+    private TransferRequest transferRequest(Long fromCardId, Long toCardId, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCardId(fromCardId);
+        request.setToCardId(toCardId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
     }
 }
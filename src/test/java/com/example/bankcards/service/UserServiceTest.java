@@ -9,6 +9,7 @@ import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserAuthorityCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -43,6 +44,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserAuthorityCache userAuthorityCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -194,6 +198,7 @@ class UserServiceTest {
         verify(userRepository).existsByUsername("newusername");
         verify(passwordEncoder).encode("newpassword");
         verify(userRepository).save(any(User.class));
+        verify(userAuthorityCache).evict(1L);
     }
 
     @Test
@@ -227,6 +232,7 @@ class UserServiceTest {
         verify(userRepository).findById(1L);
         verify(userRepository).hasUserCardsWithBalance(1L);
         verify(userRepository).delete(testUser);
+        verify(userAuthorityCache).evict(1L);
     }
 
     @Test
@@ -284,43 +290,40 @@ class UserServiceTest {
     @DisplayName("Должен вернуть true для администратора")
     void isAdmin_ShouldReturnTrue_WhenUserIsAdmin() {
         // Given
-        Role adminRole = new Role();
-        adminRole.setName(RoleName.ADMIN);
-        testUser.setRoles(Collections.singleton(adminRole));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userAuthorityCache.isAdmin(1L)).thenReturn(true);
 
         // When
         boolean result = userService.isAdmin(1L);
 
         // Then
         assertThat(result).isTrue();
-        verify(userRepository).findById(1L);
+        verify(userAuthorityCache).isAdmin(1L);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     @DisplayName("Должен вернуть false для обычного пользователя")
     void isAdmin_ShouldReturnFalse_WhenUserIsNotAdmin() {
         // Given
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userAuthorityCache.isAdmin(1L)).thenReturn(false);
 
         // When
         boolean result = userService.isAdmin(1L);
 
         // Then
         assertThat(result).isFalse();
-        verify(userRepository).findById(1L);
+        verify(userAuthorityCache).isAdmin(1L);
     }
 
     @Test
     @DisplayName("Должен выбросить исключение при проверке роли несуществующего пользователя")
     void isAdmin_ShouldThrowException_WhenUserNotFound() {
         // Given
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userAuthorityCache.isAdmin(999L)).thenThrow(new ResourceNotFoundException("User not found with id: 999"));
 
         // When & Then
         assertThatThrownBy(() -> userService.isAdmin(999L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found with id: 999");
-        verify(userRepository).findById(999L);
     }
 }
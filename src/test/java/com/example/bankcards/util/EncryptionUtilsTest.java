@@ -0,0 +1,141 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.BusinessLogicException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Тесты для EncryptionUtils")
+class EncryptionUtilsTest {
+
+    private EncryptionUtils encryptionUtils;
+
+    @BeforeEach
+    void setUp() {
+        encryptionUtils = new EncryptionUtils("7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W", "blind-index-test-key", 4);
+    }
+
+    @Test
+    @DisplayName("Должен расшифровать зашифрованный номер карты")
+    void decrypt_ShouldReturnOriginalData_WhenEncryptedByService() {
+        // When
+        String encrypted = encryptionUtils.encrypt("1234567890123456");
+
+        // Then
+        assertThat(encryptionUtils.decrypt(encrypted)).isEqualTo("1234567890123456");
+    }
+
+    @Test
+    @DisplayName("Должен использовать новый IV для каждого шифрования")
+    void encrypt_ShouldProduceDifferentCiphertexts_ForSameData() {
+        // When
+        byte[] first = encryptionUtils.encrypt("1234567890123456".getBytes(StandardCharsets.UTF_8));
+        byte[] second = encryptionUtils.encrypt("1234567890123456".getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertThat(first).hasSize(12 + 16 + 16);
+        assertThat(first).isNotEqualTo(second);
+        assertThat(new String(encryptionUtils.decrypt(second), StandardCharsets.UTF_8)).isEqualTo("1234567890123456");
+    }
+
+    @Test
+    @DisplayName("Должен замерять шифрование и расшифровку отдельными таймерами")
+    void encryptAndDecrypt_ShouldRecordTimersByOperation() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EncryptionUtils timedUtils = new EncryptionUtils("7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W", "blind-index-test-key",
+                4, registry);
+
+        // When
+        String encrypted = timedUtils.encrypt("1234567890123456");
+        timedUtils.decrypt(encrypted);
+        timedUtils.decrypt(encrypted);
+
+        // Then
+        assertThat(registry.get(EncryptionUtils.TIMER_NAME).tag("operation", "encrypt").timer().count()).isEqualTo(1);
+        assertThat(registry.get(EncryptionUtils.TIMER_NAME).tag("operation", "decrypt").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение при изменении шифртекста")
+    void decrypt_ShouldThrowException_WhenCiphertextTampered() {
+        // Given
+        byte[] encrypted = Base64.getDecoder().decode(encryptionUtils.encrypt("1234567890123456"));
+        encrypted[encrypted.length - 1] ^= 1;
+        String tampered = Base64.getEncoder().encodeToString(encrypted);
+
+        // When & Then
+        assertThatThrownBy(() -> encryptionUtils.decrypt(tampered))
+                .isInstanceOf(BusinessLogicException.class)
+                .hasMessage("Decryption failed");
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение для слишком коротких данных")
+    void decrypt_ShouldThrowException_WhenDataTooShort() {
+        assertThatThrownBy(() -> encryptionUtils.decrypt(new byte[8]))
+                .isInstanceOf(BusinessLogicException.class)
+                .hasMessage("Decryption failed");
+    }
+
+    @Test
+    @DisplayName("Должен вычислять одинаковый слепой индекс для одного номера карты")
+    void blindIndex_ShouldBeDeterministic() {
+        // When
+        byte[] first = encryptionUtils.blindIndex("1234567890123456");
+        byte[] second = encryptionUtils.blindIndex("1234567890123456");
+        byte[] other = encryptionUtils.blindIndex("1234567890123457");
+
+        // Then
+        assertThat(first).hasSize(EncryptionUtils.BLIND_INDEX_LENGTH);
+        assertThat(first).isEqualTo(second);
+        assertThat(first).isNotEqualTo(other);
+    }
+
+    @Test
+    @DisplayName("Должен зависеть от ключа слепого индекса")
+    void blindIndex_ShouldDependOnKey() {
+        // Given
+        EncryptionUtils otherKeyUtils = new EncryptionUtils("7xK9#pL2mQv@nR8sT4wZ!fD6cB1yHj5W", "another-key", 4);
+
+        // When & Then
+        assertThat(otherKeyUtils.blindIndex("1234567890123456"))
+                .isNotEqualTo(encryptionUtils.blindIndex("1234567890123456"));
+    }
+
+    @Test
+    @DisplayName("Должен корректно работать при параллельных вызовах")
+    void encryptDecrypt_ShouldBeThreadSafe() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 2000; i++) {
+                String cardNumber = String.format("4000%012d", i);
+                results.add(executor.submit(() ->
+                        cardNumber.equals(encryptionUtils.decrypt(encryptionUtils.encrypt(cardNumber)))));
+            }
+
+            // Then
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
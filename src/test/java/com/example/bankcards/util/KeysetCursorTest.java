@@ -0,0 +1,54 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.ValidationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Тесты для KeysetCursor")
+class KeysetCursorTest {
+
+    @Test
+    @DisplayName("Должен восстановить курсор из закодированной строки")
+    void decode_ShouldReturnOriginalCursor_WhenEncoded() {
+        // Given
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2026, 10, 17, 9, 30, 15, 123456000), 987654321L);
+
+        // When
+        String encoded = cursor.encode();
+
+        // Then
+        assertThat(encoded).doesNotContain("|", "=", "+", "/");
+        assertThat(KeysetCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("Должен вернуть null для отсутствующего курсора")
+    void decodeNullable_ShouldReturnNull_WhenCursorMissing() {
+        assertThat(KeysetCursor.decodeNullable(null)).isNull();
+        assertThat(KeysetCursor.decodeNullable(" ")).isNull();
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение для поврежденного курсора")
+    void decode_ShouldThrowException_WhenCursorMalformed() {
+        assertThatThrownBy(() -> KeysetCursor.decode("%%%"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> KeysetCursor.decode("bm8tc2VwYXJhdG9y"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    @DisplayName("Должен отклонить размер порции вне допустимого диапазона")
+    void limit_ShouldThrowException_WhenSizeOutOfRange() {
+        assertThat(KeysetCursor.limit(20).getPageSize()).isEqualTo(20);
+        assertThatThrownBy(() -> KeysetCursor.limit(0)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> KeysetCursor.limit(KeysetCursor.MAX_SIZE + 1)).isInstanceOf(ValidationException.class);
+    }
+}